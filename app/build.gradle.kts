@@ -33,6 +33,12 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        unitTests.all {
+            // Benchmarks are skipped unless run with -Pbenchmarks=true
+            it.systemProperty("benchmarks", project.findProperty("benchmarks") ?: "false")
+        }
+    }
 }
 
 dependencies {
@@ -1,5 +1,9 @@
 package com.s23010526.hiddensrilanka;
 
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.content.pm.PackageManager;
+import android.location.Location;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.Log;
@@ -12,13 +16,17 @@ import android.widget.LinearLayout;
 import android.widget.Toast;
 import android.widget.ProgressBar;
 
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.google.android.gms.location.LocationServices;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputLayout;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -45,6 +53,16 @@ public class AddLocationActivity extends BaseActivity implements ImageGalleryAda
     // Firebase
     private FirebaseFirestore firestore;
 
+    // Contributor's last known fix - used as the attraction's coordinates when they are in the chosen city
+    private static final double MAX_FIX_DISTANCE_FROM_CITY_KM = 15.0;
+    // A fix is only trusted as "where the contributor is standing" when recent and tight
+    private static final long MAX_FIX_AGE_MS = 10 * 60 * 1000;
+    private static final float MAX_FIX_ACCURACY_M = 100f;
+    private Location lastKnownLocation;
+
+    // Set from submit until the write succeeds or fails, so a second tap cannot add the place twice
+    private boolean isSubmitting = false;
+
     // Image gallery data
     private ArrayList<String> imageUrls;
     private ImageGalleryAdapter imageGalleryAdapter;
@@ -72,6 +90,22 @@ public class AddLocationActivity extends BaseActivity implements ImageGalleryAda
         setupDropdowns();
         setupClickListeners();
         setupTutorialVideo();
+        fetchLastKnownLocation();
+    }
+
+    /**
+     * Remember the device's last known location, if the user already granted access
+     * Contributors usually add places they are standing at or near
+     */
+    @SuppressLint("MissingPermission")
+    private void fetchLastKnownLocation() {
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED
+                && ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+        LocationServices.getFusedLocationProviderClient(this).getLastLocation()
+                .addOnSuccessListener(this, location -> lastKnownLocation = location)
+                .addOnFailureListener(e -> Log.w(TAG, "Could not get last location: " + e.getMessage()));
     }
 
     private void initializeViews() {
@@ -171,12 +205,8 @@ public class AddLocationActivity extends BaseActivity implements ImageGalleryAda
 
     private void setupDropdowns() {
         // Categories dropdown
-        String[] categories = {
-            "Historical Site", "WaterFall", "Beach", "Mountain", "Temple",
-            "National Park", "Cave", "Lake", "Village", "Cultural Site", "More"
-        };
         ArrayAdapter<String> categoryAdapter = new ArrayAdapter<>(this,
-            android.R.layout.simple_dropdown_item_1line, categories);
+            android.R.layout.simple_dropdown_item_1line, AttractionCategories.ALL);
         etCategory.setAdapter(categoryAdapter);
 
         // All Sri Lankan cities (comprehensive list)
@@ -281,22 +311,11 @@ public class AddLocationActivity extends BaseActivity implements ImageGalleryAda
         Log.d(TAG, "loadAndDisplayImage called with URL: " + url);
         progressBar.setVisibility(View.VISIBLE);
 
-        // Check if it's a Google Photos share link that needs processing
-        if (url.contains("photos.app.goo.gl") || url.contains("photos.google.com/share")) {
-            Log.d(TAG, "Detected Google Photos URL, processing...");
+        // Google Photos share links are resolved by Glide itself (GooglePhotosModelLoader)
+        if (GooglePhotosUrlHelper.isGooglePhotosUrl(url)) {
             Toast.makeText(this, "Processing Google Photos link...", Toast.LENGTH_SHORT).show();
-
-            // Use the GooglePhotosUrlHelper to process the URL first
-            GooglePhotosUrlHelper.processImageUrl(this, url, processedUrl -> {
-                Log.d(TAG, "Google Photos URL processed to: " + processedUrl);
-                // Load the processed URL
-                loadImageWithGlide(processedUrl);
-            });
-        } else {
-            Log.d(TAG, "Direct image URL detected, loading directly...");
-            // Direct image URL - load directly
-            loadImageWithGlide(url);
         }
+        loadImageWithGlide(url);
     }
 
     private void loadImageWithGlide(String url) {
@@ -499,6 +518,9 @@ public class AddLocationActivity extends BaseActivity implements ImageGalleryAda
     }
 
     private void validateAndSubmitLocation() {
+        if (isSubmitting) {
+            return; // Still resolving images or writing the previous tap
+        }
         String locationName = etLocationName.getText().toString().trim();
         String description = etDescription.getText().toString().trim();
         String category = etCategory.getText().toString().trim();
@@ -588,12 +610,21 @@ public class AddLocationActivity extends BaseActivity implements ImageGalleryAda
 
     private void submitLocation(String locationName, String description, String category,
                               String city, String contributorName, String youtubeUrl, String province, ArrayList<String> imageUrls) {
-        progressBar.setVisibility(View.VISIBLE);
+        setSubmitting(true);
 
         saveLocationToFirestore(locationName, description, category, city,
                               contributorName, youtubeUrl, imageUrls, province);
     }
 
+    /**
+     * Disable the submit button and show progress while a submission is running
+     */
+    private void setSubmitting(boolean submitting) {
+        isSubmitting = submitting;
+        btnSubmitLocation.setEnabled(!submitting);
+        progressBar.setVisibility(submitting ? View.VISIBLE : View.GONE);
+    }
+
     private void saveLocationToFirestore(String locationName, String description, String category,
                                        String city, String contributorName, String youtubeUrl,
                                        ArrayList<String> imageUrls, String province) {
@@ -609,16 +640,87 @@ public class AddLocationActivity extends BaseActivity implements ImageGalleryAda
         locationData.put("contributedAt", System.currentTimeMillis());
         locationData.put("youtubeUrl", youtubeUrl.isEmpty() ? "" : youtubeUrl);
 
-        // Create images list with the provided URLs
-        locationData.put("images", imageUrls);
+        // Share links are resolved here, once, instead of on every reader's device
+        GooglePhotosUrlHelper.resolveForStorage(this, imageUrls, storedImages -> {
+            putImages(locationData, storedImages);
 
-        // Save to Firestore under cities/{city}/attractions collection
-        firestore.collection("cities")
+            // Coordinates and geohash make the attraction reachable by proximity queries
+            SriLankaGazetteer.load(this, gazetteer -> {
+                putCoordinates(locationData, gazetteer.findByName(city));
+                writeLocation(city, locationData);
+            });
+        });
+    }
+
+    /**
+     * Store the images readers load plus where each came from
+     *
+     * "images" holds the URLs to load - direct URLs for resolved share links - so
+     * every existing reader (and the summary thumbnail) picks them up unchanged.
+     * "imageSources" keeps each original link with its dimensions.
+     */
+    private void putImages(Map<String, Object> locationData, List<GooglePhotosUrlHelper.StoredImage> storedImages) {
+        List<String> images = new ArrayList<>();
+        List<Map<String, Object>> imageSources = new ArrayList<>();
+        for (GooglePhotosUrlHelper.StoredImage image : storedImages) {
+            images.add(image.url);
+            imageSources.add(image.toMap());
+        }
+        locationData.put("images", images);
+        locationData.put("imageSources", imageSources);
+    }
+
+    /**
+     * Store latitude, longitude and geohash for the new attraction
+     *
+     * The contributor never picks the point, so the coordinates are always an
+     * estimate and are stored with locationApproximate = true. A recent, accurate
+     * fix within the chosen city is the better estimate (contributors usually add
+     * a place while they are there); otherwise the city's centroid from the
+     * gazetteer is the best we know.
+     */
+    private void putCoordinates(Map<String, Object> locationData, SriLankaGazetteer.Town town) {
+        double latitude;
+        double longitude;
+        if (isUsableFix(lastKnownLocation) && (town == null
+                || town.distanceKmTo(lastKnownLocation.getLatitude(), lastKnownLocation.getLongitude()) <= MAX_FIX_DISTANCE_FROM_CITY_KM)) {
+            latitude = lastKnownLocation.getLatitude();
+            longitude = lastKnownLocation.getLongitude();
+        } else if (town != null) {
+            latitude = town.getLatitude();
+            longitude = town.getLongitude();
+        } else {
+            Log.w(TAG, "No coordinates available for new location, it will not appear in nearby results");
+            return;
+        }
+
+        locationData.put("latitude", latitude);
+        locationData.put("longitude", longitude);
+        locationData.put("geohash", GeoHash.encode(latitude, longitude));
+        locationData.put("locationApproximate", true);
+    }
+
+    private static boolean isUsableFix(Location fix) {
+        if (fix == null) {
+            return false;
+        }
+        long ageMs = System.currentTimeMillis() - fix.getTime();
+        return ageMs <= MAX_FIX_AGE_MS && fix.hasAccuracy() && fix.getAccuracy() <= MAX_FIX_ACCURACY_M;
+    }
+
+    private void writeLocation(String city, Map<String, Object> locationData) {
+        // Save to Firestore under cities/{city}/attractions, with its card summary and the
+        // city's manifest counts in the same batch
+        DocumentReference documentReference = firestore.collection("cities")
                 .document(city)
-                .collection("attractions")
-                .add(locationData)
-                .addOnSuccessListener(documentReference -> {
-                    progressBar.setVisibility(View.GONE);
+                .collection(AttractionSummaries.FULL_COLLECTION)
+                .document();
+        WriteBatch batch = firestore.batch();
+        AttractionSummaries.setWithSummary(batch, documentReference, locationData);
+        CityManifest.recordAddition(batch, documentReference, (String) locationData.get("category"));
+        batch.commit()
+                .addOnSuccessListener(unused -> {
+                    setSubmitting(false);
                     Log.d(TAG, "Location added successfully with ID: " + documentReference.getId());
 
                     Toast.makeText(this, "Location added successfully! Thank you for your contribution.",
@@ -628,7 +730,7 @@ public class AddLocationActivity extends BaseActivity implements ImageGalleryAda
                     clearForm();
                 })
                 .addOnFailureListener(e -> {
-                    progressBar.setVisibility(View.GONE);
+                    setSubmitting(false);
                     Log.e(TAG, "Error adding location: " + e.getMessage());
 
                     String errorMessage = "Failed to add location";
@@ -1,8 +1,12 @@
 package com.s23010526.hiddensrilanka;
 
 import androidx.annotation.NonNull;
+
+import com.google.firebase.firestore.Exclude;
+
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Objects;
 
 /**
  * Attraction - Data model class for tourist attractions in Sri Lanka
@@ -42,6 +46,11 @@ public class Attraction {
     private String imageUrl;       // Primary image URL (for backward compatibility)
     private double latitude;       // GPS coordinate for precise location
     private double longitude;      // GPS coordinate for precise location
+    private String geohash;        // Geohash of the coordinates, used for proximity range queries
+    private boolean locationApproximate; // Coordinates were inferred (contributor's fix or town centre), not picked
+
+    // Where the full document lives when this object was built from a summary (never stored)
+    private String documentPath;
 
     // Special state field for UI placeholder handling
     private boolean isPlaceholder; // Indicates "grow our database" entries
@@ -277,6 +286,36 @@ public class Attraction {
         this.longitude = longitude;
     }
 
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public void setGeohash(String geohash) {
+        this.geohash = geohash;
+    }
+
+    /**
+     * Whether the coordinates are only an estimate of where the attraction is
+     * Shown as "~" distances and faded pins rather than exact positions.
+     */
+    public boolean isLocationApproximate() {
+        return locationApproximate;
+    }
+
+    public void setLocationApproximate(boolean locationApproximate) {
+        this.locationApproximate = locationApproximate;
+    }
+
+    @Exclude
+    public String getDocumentPath() {
+        return documentPath;
+    }
+
+    @Exclude
+    public void setDocumentPath(String documentPath) {
+        this.documentPath = documentPath;
+    }
+
     public boolean isPlaceholder() {
         return isPlaceholder;
     }
@@ -314,6 +353,29 @@ public class Attraction {
         return latitude != 0.0 && longitude != 0.0;
     }
 
+    /**
+     * Utility method to compare every displayed and stored field with another attraction
+     * Used by the local cache to skip rewriting rows that did not change
+     */
+    public boolean hasSameContent(Attraction other) {
+        if (other == null) return false;
+        return Objects.equals(documentId, other.documentId) &&
+                Objects.equals(name, other.name) &&
+                Objects.equals(category, other.category) &&
+                Objects.equals(description, other.description) &&
+                Objects.equals(youtubeUrl, other.youtubeUrl) &&
+                Objects.equals(images, other.images) &&
+                Objects.equals(contributorName, other.contributorName) &&
+                contributedAt == other.contributedAt &&
+                Objects.equals(city, other.city) &&
+                Objects.equals(province, other.province) &&
+                Double.compare(latitude, other.latitude) == 0 &&
+                Double.compare(longitude, other.longitude) == 0 &&
+                Objects.equals(geohash, other.geohash) &&
+                locationApproximate == other.locationApproximate &&
+                isPlaceholder == other.isPlaceholder;
+    }
+
     @NonNull
     @Override
     public String toString() {
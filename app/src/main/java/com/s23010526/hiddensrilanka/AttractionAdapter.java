@@ -13,6 +13,8 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
@@ -23,6 +25,7 @@ import com.bumptech.glide.request.target.Target;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * AttractionAdapter - RecyclerView adapter for displaying attraction cards in Hidden Sri Lanka app
@@ -34,6 +37,7 @@ import java.util.List;
  * 4. Image loading with Google Photos URL processing and Glide integration
  * 5. Dynamic UI updates based on data state (placeholder vs real data)
  * 6. Click handling for different card types (placeholder vs attraction)
+ * 7. AsyncListDiffer updates with stable IDs so reloads only rebind changed rows
  *
  * Key Features:
  * - Handles both real attraction data and placeholder cards
@@ -50,20 +54,46 @@ import java.util.List;
  * @version 2.0.0
  * @since 1.0.0
  */
-public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.AttractionViewHolder> {
+public class AttractionAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     private static final String TAG = "AttractionAdapter";
 
+    // View types - attraction cards plus an optional "loading more" footer
+    private static final int VIEW_TYPE_ATTRACTION = 0;
+    private static final int VIEW_TYPE_LOADING_FOOTER = 1;
+    private static final long FOOTER_ITEM_ID = Long.MAX_VALUE;
+
+    /**
+     * Diff callback keyed on the Firestore document ID
+     * Rows whose content is unchanged are not rebound, so their Glide requests keep running
+     */
+    private static final DiffUtil.ItemCallback<Attraction> DIFF_CALLBACK = new DiffUtil.ItemCallback<Attraction>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Attraction oldItem, @NonNull Attraction newItem) {
+            return Objects.equals(oldItem.getDocumentId(), newItem.getDocumentId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Attraction oldItem, @NonNull Attraction newItem) {
+            return oldItem.hasSameContent(newItem);
+        }
+    };
+
     /**
-     * List of attractions to display - immutable after initialization
+     * List of attractions to display - diffed off the main thread on every update
      * Contains both real attraction data and placeholder entries for user engagement
      */
-    private final List<Attraction> attractionList;
+    private final AsyncListDiffer<Attraction> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+
+    /**
+     * Whether the paging footer is shown below the last card
+     */
+    private boolean showLoadingFooter = false;
 
     /**
      * Constructor - Initialize adapter with attraction data
      *
-     * @param attractionList List of attractions to display in RecyclerView
+     * @param attractionList Initial attractions to display in RecyclerView (copied)
      *                      Must not be null, can contain placeholder entries
      * @throws IllegalArgumentException if attractionList is null
      */
@@ -71,7 +101,51 @@ public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.At
         if (attractionList == null) {
             throw new IllegalArgumentException("Attraction list cannot be null");
         }
-        this.attractionList = attractionList;
+        setHasStableIds(true);
+        differ.submitList(new ArrayList<>(attractionList));
+    }
+
+    /**
+     * Return the view type for a position - the footer sits after the last attraction
+     *
+     * @param position The position of the item within the adapter's data set
+     * @return VIEW_TYPE_LOADING_FOOTER for the footer row, VIEW_TYPE_ATTRACTION otherwise
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return position >= differ.getCurrentList().size() ? VIEW_TYPE_LOADING_FOOTER : VIEW_TYPE_ATTRACTION;
+    }
+
+    /**
+     * Return a stable ID for the item at a position, derived from its document ID
+     *
+     * @param position The position of the item within the adapter's data set
+     * @return A stable ID that stays the same across reloads of the same document
+     */
+    @Override
+    public long getItemId(int position) {
+        List<Attraction> attractions = differ.getCurrentList();
+        if (position >= attractions.size()) {
+            return FOOTER_ITEM_ID;
+        }
+        Attraction attraction = attractions.get(position);
+        String key = attraction.getDocumentId() != null
+                ? attraction.getDocumentId() : "name:" + attraction.getName();
+        return stableIdFor(key);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a row key - the same key always gives the same ID and
+     * nothing is kept per row, so long sessions do not accumulate state
+     */
+    static long stableIdFor(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // Long.MAX_VALUE is the footer's ID
+        return hash == FOOTER_ITEM_ID ? hash - 1 : hash;
     }
 
     /**
@@ -79,12 +153,18 @@ public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.At
      * Called when RecyclerView needs a new item view that doesn't exist in the cache
      *
      * @param parent The ViewGroup into which the new View will be added
-     * @param viewType The view type of the new View (unused in this implementation)
-     * @return A new AttractionViewHolder that holds a View of the given view type
+     * @param viewType Attraction card or loading footer
+     * @return A new ViewHolder that holds a View of the given view type
      */
     @NonNull
     @Override
-    public AttractionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (viewType == VIEW_TYPE_LOADING_FOOTER) {
+            View footer = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.list_item_loading_footer, parent, false);
+            return new LoadingFooterViewHolder(footer);
+        }
+
         // Inflate the item layout for each attraction card
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.list_item_attraction, parent, false);
@@ -103,8 +183,12 @@ public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.At
      * @param position The position of the item within the adapter's data set
      */
     @Override
-    public void onBindViewHolder(@NonNull AttractionViewHolder holder, int position) {
-        Attraction currentAttraction = attractionList.get(position);
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder viewHolder, int position) {
+        if (!(viewHolder instanceof AttractionViewHolder)) {
+            return; // The loading footer has nothing to bind
+        }
+        AttractionViewHolder holder = (AttractionViewHolder) viewHolder;
+        Attraction currentAttraction = differ.getCurrentList().get(position);
 
         // Set basic text data for the attraction card
         holder.nameTextView.setText(currentAttraction.getName());
@@ -156,19 +240,10 @@ public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.At
                 holder.itemView.getContext(), R.color.light_gray));
         holder.imageViewAttraction.setScaleType(ImageView.ScaleType.CENTER_CROP);
 
-        // Handle image loading with smart URL processing
+        // Handle image loading - Google Photos share links are resolved inside Glide
+        // (GooglePhotosModelLoader), so a recycled card cancels its pending load
         if (attraction.getImages() != null && !attraction.getImages().isEmpty()) {
-            String imageUrl = attraction.getImages().get(0);
-
-            // Process Google Photos URLs for direct image access
-            if (isGooglePhotosUrl(imageUrl)) {
-                Log.d(TAG, "Processing Google Photos URL for: " + attraction.getName());
-                GooglePhotosUrlHelper.processImageUrl(holder.itemView.getContext(),
-                        imageUrl, processedUrl -> loadImageWithGlide(holder, processedUrl));
-            } else {
-                // Load direct image URLs immediately
-                loadImageWithGlide(holder, imageUrl);
-            }
+            loadImageWithGlide(holder, attraction.getImages().get(0));
         } else {
             // No image available - show placeholder
             Log.w(TAG, "No images available for attraction: " + attraction.getName());
@@ -234,6 +309,9 @@ public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.At
         intent.putExtra("contributor_name", attraction.getContributorName());
         intent.putExtra("youtube_url", attraction.getYoutubeUrl());
 
+        // Cards are built from summaries - the detail screen loads the full document from here
+        intent.putExtra("attraction_document_path", AttractionSummaries.fullDocumentPath(attraction));
+
         // Pass coordinate data for directions functionality
         intent.putExtra("attraction_latitude", attraction.getLatitude());
         intent.putExtra("attraction_longitude", attraction.getLongitude());
@@ -259,11 +337,28 @@ public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.At
      * Return the total number of items in the dataset
      * Required method for RecyclerView.Adapter
      *
-     * @return Total number of items (attractions + placeholders) to display
+     * @return Total number of items (attractions + placeholders + footer) to display
      */
     @Override
     public int getItemCount() {
-        return attractionList.size();
+        return differ.getCurrentList().size() + (showLoadingFooter ? 1 : 0);
+    }
+
+    /**
+     * Show or hide the "loading more" footer below the last card
+     *
+     * @param visible true while the next page of attractions is being fetched
+     */
+    public void setLoadingFooterVisible(boolean visible) {
+        if (showLoadingFooter == visible) {
+            return;
+        }
+        showLoadingFooter = visible;
+        if (visible) {
+            notifyItemInserted(differ.getCurrentList().size());
+        } else {
+            notifyItemRemoved(differ.getCurrentList().size());
+        }
     }
 
     /**
@@ -299,27 +394,12 @@ public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.At
     }
 
     /**
-     * Utility method to detect Google Photos URLs that require special processing
-     *
-     * Google Photos share links cannot be loaded directly by image libraries.
-     * They must be processed through GooglePhotosUrlHelper to extract direct image URLs.
-     *
-     * Supported Google Photos URL patterns:
-     * - photos.app.goo.gl/* (shortened share links)
-     * - photos.google.com/share/* (direct share links)
-     * - photos.google.com/u/* (user photo links)
-     * - photos.google.com/album/* (album links)
-     *
-     * @param url The image URL to analyze
-     * @return true if URL requires Google Photos processing, false for direct loading
+     * ViewHolder for the paging footer - just a centred progress spinner
      */
-    private boolean isGooglePhotosUrl(String url) {
-        return url != null && (
-                url.contains("photos.app.goo.gl") ||       // Shortened share links
-                url.contains("photos.google.com/share") ||  // Direct share links
-                url.contains("photos.google.com/u/") ||     // User photo links
-                url.contains("photos.google.com/album")     // Album links
-        );
+    public static class LoadingFooterViewHolder extends RecyclerView.ViewHolder {
+        public LoadingFooterViewHolder(@NonNull View itemView) {
+            super(itemView);
+        }
     }
 
     /**
@@ -336,7 +416,7 @@ public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.At
      * and proper error handling in production applications.
      *
      * @param holder The ViewHolder containing the target ImageView
-     * @param imageUrl The processed, direct image URL to load
+     * @param imageUrl Direct image URL or Google Photos share link to load
      */
     private void loadImageWithGlide(AttractionViewHolder holder, String imageUrl) {
         Glide.with(holder.itemView.getContext())
@@ -369,24 +449,15 @@ public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.At
 
     /**
      * Update the adapter's data set and refresh the RecyclerView efficiently
-     * Useful for dynamic content updates without recreating the adapter
+     * The diff runs on a background thread and only dispatches insert, move,
+     * remove and change events for rows that actually differ
      *
-     * @param newAttractions The new list of attractions to display
+     * @param newAttractions The new list of attractions to display (copied)
      */
     public void updateAttractions(List<Attraction> newAttractions) {
         if (newAttractions != null) {
-            int oldSize = attractionList.size();
-            attractionList.clear();
-            attractionList.addAll(newAttractions);
-
-            // Use more efficient notification methods
-            if (oldSize == newAttractions.size()) {
-                notifyItemRangeChanged(0, newAttractions.size());
-            } else {
-                notifyDataSetChanged(); // Only when size changes
-            }
-
-            Log.d(TAG, "Attraction list updated with " + newAttractions.size() + " items");
+            differ.submitList(new ArrayList<>(newAttractions));
+            Log.d(TAG, "Attraction list submitted with " + newAttractions.size() + " items");
         }
     }
 
@@ -397,8 +468,9 @@ public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.At
      */
     public void addAttraction(Attraction attraction) {
         if (attraction != null) {
-            attractionList.add(attraction);
-            notifyItemInserted(attractionList.size() - 1);
+            List<Attraction> updated = new ArrayList<>(differ.getCurrentList());
+            updated.add(attraction);
+            differ.submitList(updated);
             Log.d(TAG, "Added attraction: " + attraction.getName());
         }
     }
@@ -409,10 +481,12 @@ public class AttractionAdapter extends RecyclerView.Adapter<AttractionAdapter.At
      * @param position The position of the attraction to remove
      */
     public void removeAttraction(int position) {
-        if (position >= 0 && position < attractionList.size()) {
-            Attraction removed = attractionList.remove(position);
-            notifyItemRemoved(position);
+        List<Attraction> current = differ.getCurrentList();
+        if (position >= 0 && position < current.size()) {
+            List<Attraction> updated = new ArrayList<>(current);
+            Attraction removed = updated.remove(position);
+            differ.submitList(updated);
             Log.d(TAG, "Removed attraction: " + removed.getName());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,337 @@
+package com.s23010526.hiddensrilanka;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * AttractionCache - Disk-backed store of attractions keyed by city and category
+ *
+ * The Home feed reads from this cache first so cards appear without waiting for
+ * Firestore, then revalidates against cities/{city}/attractions in the background.
+ * Revalidation only writes rows that actually changed and reports whether the
+ * visible result set needs to be refreshed.
+ *
+ * All database work runs on a single background thread; callbacks are delivered
+ * on the main thread.
+ */
+public class AttractionCache extends SQLiteOpenHelper {
+
+    private static final String TAG = "AttractionCache";
+
+    private static final String DATABASE_NAME = "attraction_cache.db";
+    private static final int DATABASE_VERSION = 4;
+
+    private static final String TABLE_ATTRACTIONS = "attractions";
+    private static final String TABLE_CITY_SYNC = "city_sync";
+
+    private static final String COL_DOCUMENT_ID = "document_id";
+    private static final String COL_CITY = "city";
+    private static final String COL_CATEGORY = "category";
+    private static final String COL_NAME = "name";
+    private static final String COL_DESCRIPTION = "description";
+    private static final String COL_YOUTUBE_URL = "youtube_url";
+    private static final String COL_IMAGES = "images";
+    private static final String COL_CONTRIBUTOR_NAME = "contributor_name";
+    private static final String COL_CONTRIBUTED_AT = "contributed_at";
+    private static final String COL_PROVINCE = "province";
+    private static final String COL_LATITUDE = "latitude";
+    private static final String COL_LONGITUDE = "longitude";
+    private static final String COL_LOCATION_APPROXIMATE = "location_approximate";
+    private static final String COL_GEOHASH = "geohash";
+    private static final String COL_SYNCED_AT = "synced_at";
+    private static final String COL_MANIFEST_MODIFIED = "manifest_modified";
+
+    private static AttractionCache instance;
+
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Callback for cache reads and revalidation results
+     */
+    public interface CacheCallback {
+        void onResult(List<Attraction> attractions, boolean changed);
+    }
+
+    /**
+     * Callback for the stored city manifest stamp
+     */
+    public interface ManifestStampCallback {
+        void onResult(long lastModified);
+    }
+
+    public static synchronized AttractionCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new AttractionCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AttractionCache(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ATTRACTIONS + " ("
+                + COL_DOCUMENT_ID + " TEXT NOT NULL, "
+                + COL_CITY + " TEXT NOT NULL, "
+                + COL_CATEGORY + " TEXT, "
+                + COL_NAME + " TEXT, "
+                + COL_DESCRIPTION + " TEXT, "
+                + COL_YOUTUBE_URL + " TEXT, "
+                + COL_IMAGES + " TEXT, "
+                + COL_CONTRIBUTOR_NAME + " TEXT, "
+                + COL_CONTRIBUTED_AT + " INTEGER, "
+                + COL_PROVINCE + " TEXT, "
+                + COL_LATITUDE + " REAL, "
+                + COL_LONGITUDE + " REAL, "
+                + COL_LOCATION_APPROXIMATE + " INTEGER, "
+                + COL_GEOHASH + " TEXT, "
+                + "PRIMARY KEY (" + COL_CITY + ", " + COL_DOCUMENT_ID + "))");
+        db.execSQL("CREATE INDEX idx_attractions_city_category ON "
+                + TABLE_ATTRACTIONS + " (" + COL_CITY + ", " + COL_CATEGORY + ")");
+        db.execSQL("CREATE TABLE " + TABLE_CITY_SYNC + " ("
+                + COL_CITY + " TEXT PRIMARY KEY, "
+                + COL_SYNCED_AT + " INTEGER, "
+                + COL_MANIFEST_MODIFIED + " INTEGER)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // The cache can always be rebuilt from Firestore, so just start over
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ATTRACTIONS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_CITY_SYNC);
+        onCreate(db);
+    }
+
+    /**
+     * Read cached attractions for a city (and optional category) in the background
+     *
+     * @param city City document name
+     * @param category Category filter, or "All" for every category
+     * @param callback Receives the cached rows on the main thread (may be empty)
+     */
+    public void loadAsync(String city, String category, CacheCallback callback) {
+        diskExecutor.execute(() -> {
+            List<Attraction> cached = getAttractions(city, category);
+            mainHandler.post(() -> callback.onResult(cached, false));
+        });
+    }
+
+    /**
+     * Apply one page of a fresh Firestore result to the cache in the background
+     *
+     * A page ordered by name covers the name range (afterName, upToName]. Cached
+     * rows in that range are compared with the page: only inserted, updated or
+     * deleted rows are written. The callback reports whether anything differed
+     * from what was cached before.
+     *
+     * @param city City document name
+     * @param category Category the page was filtered by, or "All"
+     * @param afterName Last name of the previous page, or null for the first page
+     * @param upToName Last name of this page, or null when this is the final page
+     * @param page Attractions returned by Firestore for this page
+     * @param callback Receives the page rows and the changed flag on the main thread
+     */
+    public void applyPageAsync(String city, String category, String afterName, String upToName,
+                               List<Attraction> page, CacheCallback callback) {
+        List<Attraction> snapshot = new ArrayList<>(page);
+        diskExecutor.execute(() -> {
+            boolean changed = applyChanges(city, category, afterName, upToName, snapshot);
+            mainHandler.post(() -> callback.onResult(snapshot, changed));
+        });
+    }
+
+    /**
+     * Read the manifest stamp the city's cached rows were last fully synced against
+     *
+     * @param callback Receives the stamp on the main thread, 0 when there is none
+     */
+    public void loadManifestStampAsync(String city, ManifestStampCallback callback) {
+        diskExecutor.execute(() -> {
+            long lastModified = 0;
+            try (Cursor cursor = getReadableDatabase().query(TABLE_CITY_SYNC, new String[]{COL_MANIFEST_MODIFIED},
+                    COL_CITY + " = ?", new String[]{city}, null, null, null)) {
+                if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                    lastModified = cursor.getLong(0);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error reading manifest stamp for " + city + ": " + e.getMessage());
+            }
+            final long stamp = lastModified;
+            mainHandler.post(() -> callback.onResult(stamp));
+        });
+    }
+
+    /**
+     * Record that the city's cached rows now match the manifest with this stamp
+     *
+     * Call only after every page of the city has been applied. Applying any
+     * later page clears the stamp again until the next complete sync.
+     */
+    public void saveManifestStampAsync(String city, long lastModified) {
+        diskExecutor.execute(() -> {
+            ContentValues values = new ContentValues();
+            values.put(COL_MANIFEST_MODIFIED, lastModified);
+            try {
+                getWritableDatabase().update(TABLE_CITY_SYNC, values, COL_CITY + " = ?", new String[]{city});
+            } catch (Exception e) {
+                Log.e(TAG, "Error saving manifest stamp for " + city + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private List<Attraction> getAttractions(String city, String category) {
+        return getAttractions(city, category, null, null);
+    }
+
+    private List<Attraction> getAttractions(String city, String category, String afterName, String upToName) {
+        List<Attraction> attractions = new ArrayList<>();
+        StringBuilder selection = new StringBuilder(COL_CITY + " = ?");
+        List<String> args = new ArrayList<>();
+        args.add(city);
+        if (!isAllCategories(category)) {
+            selection.append(" AND ").append(COL_CATEGORY).append(" = ?");
+            args.add(category);
+        }
+        if (afterName != null) {
+            selection.append(" AND ").append(COL_NAME).append(" > ?");
+            args.add(afterName);
+        }
+        if (upToName != null) {
+            selection.append(" AND ").append(COL_NAME).append(" <= ?");
+            args.add(upToName);
+        }
+
+        // Binary collation matches Firestore's orderBy("name") so cached rows line up with pages
+        try (Cursor cursor = getReadableDatabase().query(TABLE_ATTRACTIONS, null, selection.toString(),
+                args.toArray(new String[0]), null, null, COL_NAME)) {
+            while (cursor.moveToNext()) {
+                attractions.add(readAttraction(cursor));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading cache for " + city + ": " + e.getMessage());
+        }
+        return attractions;
+    }
+
+    private boolean applyChanges(String city, String category, String afterName, String upToName,
+                                 List<Attraction> fresh) {
+        Map<String, Attraction> cached = new HashMap<>();
+        for (Attraction attraction : getAttractions(city, category, afterName, upToName)) {
+            cached.put(attraction.getDocumentId(), attraction);
+        }
+
+        int written = 0;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Attraction attraction : fresh) {
+                Attraction previous = cached.remove(attraction.getDocumentId());
+                if (previous == null || !previous.hasSameContent(attraction)) {
+                    db.insertWithOnConflict(TABLE_ATTRACTIONS, null, toValues(city, attraction),
+                            SQLiteDatabase.CONFLICT_REPLACE);
+                    written++;
+                }
+            }
+
+            // Anything left in the cached map no longer exists in this page's range
+            for (String removedId : cached.keySet()) {
+                db.delete(TABLE_ATTRACTIONS, COL_CITY + " = ? AND " + COL_DOCUMENT_ID + " = ?",
+                        new String[]{city, removedId});
+                written++;
+            }
+
+            // Replacing the row also clears the manifest stamp until the sync completes
+            ContentValues sync = new ContentValues();
+            sync.put(COL_CITY, city);
+            sync.put(COL_SYNCED_AT, System.currentTimeMillis());
+            db.insertWithOnConflict(TABLE_CITY_SYNC, null, sync, SQLiteDatabase.CONFLICT_REPLACE);
+
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating cache for " + city + ": " + e.getMessage());
+        } finally {
+            db.endTransaction();
+        }
+
+        Log.d(TAG, "Revalidated " + city + "/" + category + ": " + written + " rows changed");
+        return written > 0;
+    }
+
+    private ContentValues toValues(String city, Attraction attraction) {
+        ContentValues values = new ContentValues();
+        values.put(COL_DOCUMENT_ID, attraction.getDocumentId());
+        values.put(COL_CITY, city);
+        values.put(COL_CATEGORY, attraction.getCategory());
+        values.put(COL_NAME, attraction.getName());
+        values.put(COL_DESCRIPTION, attraction.getDescription());
+        values.put(COL_YOUTUBE_URL, attraction.getYoutubeUrl());
+        values.put(COL_IMAGES, attraction.getImages() != null
+                ? new JSONArray(attraction.getImages()).toString() : null);
+        values.put(COL_CONTRIBUTOR_NAME, attraction.getContributorName());
+        values.put(COL_CONTRIBUTED_AT, attraction.getContributedAt());
+        values.put(COL_PROVINCE, attraction.getProvince());
+        values.put(COL_LATITUDE, attraction.getLatitude());
+        values.put(COL_LONGITUDE, attraction.getLongitude());
+        values.put(COL_LOCATION_APPROXIMATE, attraction.isLocationApproximate() ? 1 : 0);
+        values.put(COL_GEOHASH, attraction.getGeohash());
+        return values;
+    }
+
+    private Attraction readAttraction(Cursor cursor) {
+        Attraction attraction = new Attraction();
+        attraction.setDocumentId(cursor.getString(cursor.getColumnIndexOrThrow(COL_DOCUMENT_ID)));
+        attraction.setCity(cursor.getString(cursor.getColumnIndexOrThrow(COL_CITY)));
+        attraction.setCategory(cursor.getString(cursor.getColumnIndexOrThrow(COL_CATEGORY)));
+        attraction.setName(cursor.getString(cursor.getColumnIndexOrThrow(COL_NAME)));
+        attraction.setDescription(cursor.getString(cursor.getColumnIndexOrThrow(COL_DESCRIPTION)));
+        attraction.setYoutubeUrl(cursor.getString(cursor.getColumnIndexOrThrow(COL_YOUTUBE_URL)));
+        attraction.setImages(readImages(cursor.getString(cursor.getColumnIndexOrThrow(COL_IMAGES))));
+        attraction.setContributorName(cursor.getString(cursor.getColumnIndexOrThrow(COL_CONTRIBUTOR_NAME)));
+        attraction.setContributedAt(cursor.getLong(cursor.getColumnIndexOrThrow(COL_CONTRIBUTED_AT)));
+        attraction.setProvince(cursor.getString(cursor.getColumnIndexOrThrow(COL_PROVINCE)));
+        attraction.setLatitude(cursor.getDouble(cursor.getColumnIndexOrThrow(COL_LATITUDE)));
+        attraction.setLongitude(cursor.getDouble(cursor.getColumnIndexOrThrow(COL_LONGITUDE)));
+        attraction.setLocationApproximate(cursor.getInt(cursor.getColumnIndexOrThrow(COL_LOCATION_APPROXIMATE)) != 0);
+        attraction.setGeohash(cursor.getString(cursor.getColumnIndexOrThrow(COL_GEOHASH)));
+        return attraction;
+    }
+
+    private List<String> readImages(String json) {
+        List<String> images = new ArrayList<>();
+        if (json == null) {
+            return images;
+        }
+        try {
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                images.add(array.getString(i));
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "Corrupt image list in cache: " + e.getMessage());
+        }
+        return images;
+    }
+
+    private static boolean isAllCategories(String category) {
+        return category == null || "All".equalsIgnoreCase(category);
+    }
+}
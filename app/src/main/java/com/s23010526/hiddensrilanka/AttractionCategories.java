@@ -0,0 +1,86 @@
+package com.s23010526.hiddensrilanka;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * AttractionCategories - The categories an attraction can have
+ *
+ * {@link #ALL} is the list contributors pick from in AddLocationActivity, so
+ * it is every category the app itself writes. {@link #canonical} maps older
+ * or hand-entered spellings ("waterfall", "Religious", "wildlife") onto that
+ * list and anything unknown onto {@link #MORE}, so code keyed by category
+ * (marker icons, colours) only ever sees these values.
+ */
+public final class AttractionCategories {
+
+    public static final String HISTORICAL_SITE = "Historical Site";
+    public static final String WATERFALL = "WaterFall";
+    public static final String BEACH = "Beach";
+    public static final String MOUNTAIN = "Mountain";
+    public static final String TEMPLE = "Temple";
+    public static final String NATIONAL_PARK = "National Park";
+    public static final String CAVE = "Cave";
+    public static final String LAKE = "Lake";
+    public static final String VILLAGE = "Village";
+    public static final String CULTURAL_SITE = "Cultural Site";
+    public static final String MORE = "More";
+
+    public static final String[] ALL = {
+            HISTORICAL_SITE, WATERFALL, BEACH, MOUNTAIN, TEMPLE,
+            NATIONAL_PARK, CAVE, LAKE, VILLAGE, CULTURAL_SITE, MORE
+    };
+
+    // Lower-cased spelling -> category, covering ALL plus legacy names
+    private static final Map<String, String> BY_NAME = new HashMap<>();
+
+    static {
+        for (String category : ALL) {
+            BY_NAME.put(category.toLowerCase(Locale.ROOT), category);
+        }
+        BY_NAME.put("historical", HISTORICAL_SITE);
+        BY_NAME.put("archaeological", HISTORICAL_SITE);
+        BY_NAME.put("religious", TEMPLE);
+        BY_NAME.put("coastal", BEACH);
+        BY_NAME.put("hiking", MOUNTAIN);
+        BY_NAME.put("wildlife", NATIONAL_PARK);
+        BY_NAME.put("cultural", CULTURAL_SITE);
+    }
+
+    private AttractionCategories() {
+    }
+
+    /**
+     * The category from {@link #ALL} a stored value stands for
+     *
+     * @param category Stored category, any case; may be null
+     * @return A member of {@link #ALL}, {@link #MORE} when unknown
+     */
+    public static String canonical(String category) {
+        if (category == null) {
+            return MORE;
+        }
+        String known = BY_NAME.get(category.trim().toLowerCase(Locale.ROOT));
+        return known != null ? known : MORE;
+    }
+
+    /**
+     * Marker colour resource for a category
+     */
+    public static int colorRes(String category) {
+        switch (canonical(category)) {
+            case HISTORICAL_SITE: return R.color.category_historical_site;
+            case WATERFALL: return R.color.category_waterfall;
+            case BEACH: return R.color.category_beach;
+            case MOUNTAIN: return R.color.category_mountain;
+            case TEMPLE: return R.color.category_temple;
+            case NATIONAL_PARK: return R.color.category_national_park;
+            case CAVE: return R.color.category_cave;
+            case LAKE: return R.color.category_lake;
+            case VILLAGE: return R.color.category_village;
+            case CULTURAL_SITE: return R.color.category_cultural_site;
+            default: return R.color.category_more;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.s23010526.hiddensrilanka;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AttractionCategoryIndex - In-memory per-category buckets over one city's attractions
+ *
+ * The Home screen loads a city's attractions once, unfiltered, and rebuilds this
+ * index whenever that set changes. Switching category chips is then a map lookup
+ * instead of a new Firestore query. Each bucket keeps the order of the rows it
+ * was built from.
+ *
+ * Rows are bucketed by {@link AttractionCategories#canonical}, the same key the
+ * city manifest counts under, so a chip shown because the manifest counts a
+ * category also finds that category's rows whatever their stored spelling.
+ */
+public class AttractionCategoryIndex {
+
+    public static final String ALL = "All";
+
+    private final List<Attraction> allRows = new ArrayList<>();
+    private final Map<String, List<Attraction>> rowsByCategory = new HashMap<>();
+
+    /**
+     * Replace the indexed rows
+     */
+    public void rebuild(List<Attraction> rows) {
+        allRows.clear();
+        rowsByCategory.clear();
+        for (Attraction attraction : rows) {
+            allRows.add(attraction);
+            String category = AttractionCategories.canonical(attraction.getCategory());
+            List<Attraction> bucket = rowsByCategory.get(category);
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                rowsByCategory.put(category, bucket);
+            }
+            bucket.add(attraction);
+        }
+    }
+
+    /**
+     * Rows for one category, in indexed order
+     *
+     * @param category Category name in any spelling, or "All" (or null) for every row
+     * @return An unmodifiable view - copy it before changing
+     */
+    public List<Attraction> get(String category) {
+        if (category == null || ALL.equalsIgnoreCase(category)) {
+            return Collections.unmodifiableList(allRows);
+        }
+        List<Attraction> bucket = rowsByCategory.get(AttractionCategories.canonical(category));
+        return bucket != null ? Collections.unmodifiableList(bucket) : Collections.<Attraction>emptyList();
+    }
+
+    public void clear() {
+        allRows.clear();
+        rowsByCategory.clear();
+    }
+}
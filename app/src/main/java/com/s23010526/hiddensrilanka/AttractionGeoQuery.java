@@ -0,0 +1,199 @@
+package com.s23010526.hiddensrilanka;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * AttractionGeoQuery - "Attractions within N km" across every city
+ *
+ * Runs one collection-group range query on the geohash field per covering cell
+ * (see {@link GeoHash#queryBounds}), so only documents near the centre are read
+ * instead of whole cities. The queries read card-sized summary documents
+ * (see {@link AttractionSummaries}), not full attractions. Results are
+ * exact-filtered by great-circle distance and kept nearest first on the client.
+ *
+ * Ranges are merged as each one completes: every range that adds matches is
+ * inserted into the sorted result and reported through
+ * {@link Callback#onPartialResult}, so a slow range only delays its own
+ * attractions. A range that has not answered within {@link #RANGE_TIMEOUT_MS}
+ * is given up on and the query completes without it.
+ *
+ * Attractions written before coordinates were stored have no geohash and are
+ * simply not returned here.
+ */
+public class AttractionGeoQuery {
+
+    private static final String TAG = "AttractionGeoQuery";
+    private static final long RANGE_TIMEOUT_MS = 8_000;
+
+    /**
+     * Receives nearby attractions on the main thread
+     */
+    public interface Callback {
+        /**
+         * Everything found so far, nearest first - called each time a range adds matches
+         */
+        default void onPartialResult(List<Attraction> attractions) {
+        }
+
+        /**
+         * The complete result once every range has answered or timed out
+         */
+        void onResult(List<Attraction> attractions);
+
+        void onError(Exception exception);
+    }
+
+    private final FirebaseFirestore firestore;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public AttractionGeoQuery(FirebaseFirestore firestore) {
+        this.firestore = firestore;
+    }
+
+    /**
+     * Find attractions within radiusKm of a point, nearest first
+     */
+    public void findNearby(double latitude, double longitude, double radiusKm, Callback callback) {
+        List<String[]> bounds = GeoHash.queryBounds(latitude, longitude, radiusKm);
+        NearbyMerge merge = new NearbyMerge(latitude, longitude, radiusKm, bounds.size(), callback);
+
+        for (String[] bound : bounds) {
+            // Whichever comes first - the answer or the timeout - settles the range
+            final boolean[] settled = {false};
+            final Runnable timeout = () -> {
+                if (settled[0]) return;
+                settled[0] = true;
+                merge.onRangeFailed(new TimeoutException("Geohash range " + bound[0] + ".." + bound[1]
+                        + " took longer than " + RANGE_TIMEOUT_MS + " ms"));
+            };
+            mainHandler.postDelayed(timeout, RANGE_TIMEOUT_MS);
+
+            firestore.collectionGroup(AttractionSummaries.SUMMARY_COLLECTION)
+                    .orderBy("geohash")
+                    .startAt(bound[0])
+                    .endAt(bound[1])
+                    .get()
+                    .addOnCompleteListener(task -> {
+                        if (settled[0]) {
+                            Log.d(TAG, "Geohash range " + bound[0] + " answered after its timeout, ignored");
+                            return;
+                        }
+                        settled[0] = true;
+                        mainHandler.removeCallbacks(timeout);
+                        if (task.isSuccessful() && task.getResult() != null) {
+                            merge.onRangeLoaded(task.getResult());
+                        } else {
+                            merge.onRangeFailed(task.getException());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Sorted, de-duplicated result of one findNearby call, filled in range by range
+     * Only touched from the main thread.
+     */
+    private static final class NearbyMerge {
+        private final double latitude, longitude, radiusKm;
+        private final Callback callback;
+        private final int totalRanges;
+        private int pendingRanges;
+        private int failedRanges = 0;
+        private Exception lastError;
+
+        // Parallel lists kept sorted by distance; paths guard against duplicates
+        private final List<Attraction> results = new ArrayList<>();
+        private final List<Double> distances = new ArrayList<>();
+        private final Set<String> seenPaths = new HashSet<>();
+
+        NearbyMerge(double latitude, double longitude, double radiusKm, int totalRanges, Callback callback) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusKm = radiusKm;
+            this.totalRanges = totalRanges;
+            this.pendingRanges = totalRanges;
+            this.callback = callback;
+        }
+
+        void onRangeLoaded(QuerySnapshot snapshot) {
+            boolean added = false;
+            for (DocumentSnapshot document : snapshot.getDocuments()) {
+                Attraction attraction = AttractionSummaries.toAttraction(document);
+                if (!attraction.hasLocation() || !seenPaths.add(document.getReference().getPath())) {
+                    continue;
+                }
+                double distance = distanceKm(attraction, latitude, longitude);
+                if (distance <= radiusKm) {
+                    insertSorted(attraction, distance);
+                    added = true;
+                }
+            }
+            if (added && pendingRanges > 1) {
+                callback.onPartialResult(new ArrayList<>(results));
+            }
+            onRangeSettled();
+        }
+
+        void onRangeFailed(Exception error) {
+            Log.w(TAG, "Geohash range failed: " + error);
+            failedRanges++;
+            lastError = error;
+            onRangeSettled();
+        }
+
+        private void insertSorted(Attraction attraction, double distance) {
+            int position = Collections.binarySearch(distances, distance);
+            if (position < 0) {
+                position = -position - 1;
+            }
+            distances.add(position, distance);
+            results.add(position, attraction);
+        }
+
+        private void onRangeSettled() {
+            if (--pendingRanges > 0) {
+                return;
+            }
+            if (failedRanges == totalRanges) {
+                Log.e(TAG, "Nearby query failed: ", lastError);
+                callback.onError(lastError);
+                return;
+            }
+            if (failedRanges > 0) {
+                Log.w(TAG, failedRanges + " of " + totalRanges + " geohash ranges failed, results may be partial");
+            }
+            Log.d(TAG, "Found " + results.size() + " attractions within " + radiusKm + " km");
+            callback.onResult(results);
+        }
+    }
+
+    /**
+     * Sort attractions nearest first from the given point
+     */
+    public static void sortByDistance(List<Attraction> attractions, double latitude, double longitude) {
+        Map<Attraction, Double> distances = new HashMap<>();
+        for (Attraction attraction : attractions) {
+            distances.put(attraction, distanceKm(attraction, latitude, longitude));
+        }
+        Collections.sort(attractions, (a, b) -> Double.compare(distances.get(a), distances.get(b)));
+    }
+
+    public static double distanceKm(Attraction attraction, double latitude, double longitude) {
+        return GeoUtils.distanceKm(latitude, longitude, attraction.getLatitude(), attraction.getLongitude());
+    }
+}
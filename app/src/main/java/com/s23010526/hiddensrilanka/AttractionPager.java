@@ -0,0 +1,201 @@
+package com.s23010526.hiddensrilanka;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AttractionPager - Cursor-based paging over a Firestore attraction query
+ *
+ * Fetches fixed-size pages with startAfter(lastSnapshot) and always keeps one
+ * page prefetched, so asking for the next page while scrolling is usually
+ * answered from memory. The query must be ordered (by name) for cursors to work.
+ *
+ * All callbacks run on the main thread, like the Firestore task listeners they
+ * come from.
+ */
+public class AttractionPager {
+
+    private static final String TAG = "AttractionPager";
+
+    /**
+     * Receives pages and loading state changes
+     */
+    public interface Listener {
+        void onPageLoaded(List<Attraction> page, boolean isFirstPage, boolean hasMore);
+
+        void onLoadingChanged(boolean waitingForPage);
+
+        void onPageError(Exception exception, boolean isFirstPage);
+    }
+
+    /**
+     * Turns a result document into an Attraction - full documents and summaries differ
+     */
+    public interface DocumentConverter {
+        Attraction convert(DocumentSnapshot document);
+    }
+
+    private final Query baseQuery;
+    private final int pageSize;
+    private final DocumentConverter converter;
+    private final Listener listener;
+
+    private DocumentSnapshot cursor;
+    private boolean hasMore = true;
+    private boolean fetchInFlight = false;
+    private boolean deliverWhenReady = false;
+    private boolean firstPageDelivered = false;
+    private boolean cancelled = false;
+
+    // Page fetched ahead of time, waiting for the user to scroll to it
+    private List<Attraction> prefetchedPage;
+    private boolean prefetchedHasMore;
+
+    public AttractionPager(Query baseQuery, int pageSize, Listener listener) {
+        this(baseQuery, pageSize, AttractionPager::toAttraction, listener);
+    }
+
+    public AttractionPager(Query baseQuery, int pageSize, DocumentConverter converter, Listener listener) {
+        this.baseQuery = baseQuery;
+        this.pageSize = pageSize;
+        this.converter = converter;
+        this.listener = listener;
+    }
+
+    /**
+     * Start paging - delivers page one and prefetches page two
+     */
+    public void loadFirstPage() {
+        deliverWhenReady = true;
+        fetchPage();
+    }
+
+    /**
+     * Ask for the next page, typically when the user nears the end of the list
+     * Served from the prefetched page when it is already in memory
+     */
+    public void loadNextPage() {
+        if (cancelled || !firstPageDelivered) {
+            return;
+        }
+        if (prefetchedPage != null) {
+            List<Attraction> page = prefetchedPage;
+            prefetchedPage = null;
+            deliver(page, prefetchedHasMore);
+            return;
+        }
+        if (!hasMore || deliverWhenReady) {
+            return;
+        }
+
+        deliverWhenReady = true;
+        if (fetchInFlight) {
+            // The prefetch is still on its way - show the footer until it lands
+            listener.onLoadingChanged(true);
+        } else {
+            fetchPage();
+        }
+    }
+
+    public boolean hasMore() {
+        return hasMore || prefetchedPage != null;
+    }
+
+    /**
+     * Stop delivering results - used when the user switches city or mode
+     */
+    public void cancel() {
+        cancelled = true;
+        prefetchedPage = null;
+    }
+
+    private void fetchPage() {
+        if (cancelled || fetchInFlight || !hasMore) {
+            return;
+        }
+        fetchInFlight = true;
+        if (deliverWhenReady && firstPageDelivered) {
+            listener.onLoadingChanged(true);
+        }
+
+        Query query = baseQuery.limit(pageSize);
+        if (cursor != null) {
+            query = query.startAfter(cursor);
+        }
+
+        query.get().addOnCompleteListener(task -> {
+            fetchInFlight = false;
+            if (cancelled) {
+                return;
+            }
+
+            if (!task.isSuccessful()) {
+                Log.e(TAG, "Error fetching attraction page: ", task.getException());
+                boolean wasWaiting = deliverWhenReady;
+                deliverWhenReady = false;
+                listener.onLoadingChanged(false);
+                // A failed prefetch is retried on the next scroll; only report pages the user asked for
+                if (wasWaiting) {
+                    listener.onPageError(task.getException(), !firstPageDelivered);
+                }
+                return;
+            }
+
+            QuerySnapshot snapshot = task.getResult();
+            List<Attraction> page = new ArrayList<>();
+            for (QueryDocumentSnapshot document : snapshot) {
+                page.add(converter.convert(document));
+            }
+            hasMore = snapshot.size() >= pageSize;
+            if (!snapshot.isEmpty()) {
+                cursor = snapshot.getDocuments().get(snapshot.size() - 1);
+            }
+
+            if (deliverWhenReady) {
+                deliver(page, hasMore);
+            } else {
+                prefetchedPage = page;
+                prefetchedHasMore = hasMore;
+            }
+        });
+    }
+
+    private void deliver(List<Attraction> page, boolean pageHasMore) {
+        boolean isFirstPage = !firstPageDelivered;
+        firstPageDelivered = true;
+        deliverWhenReady = false;
+        listener.onLoadingChanged(false);
+        listener.onPageLoaded(page, isFirstPage, pageHasMore);
+
+        // Keep one page ahead of the user
+        fetchPage();
+    }
+
+    /**
+     * Convert an attraction document, filling in the city from the parent
+     * cities/{city} document when the attraction has no city field
+     */
+    public static Attraction toAttraction(DocumentSnapshot document) {
+        Attraction attraction = document.toObject(Attraction.class);
+        if (attraction == null) {
+            attraction = new Attraction();
+        }
+        attraction.setDocumentId(document.getId());
+        attraction.setDocumentPath(document.getReference().getPath());
+        if (attraction.getCity() == null) {
+            DocumentReference cityDocument = document.getReference().getParent().getParent();
+            if (cityDocument != null) {
+                attraction.setCity(cityDocument.getId());
+            }
+        }
+        return attraction;
+    }
+}
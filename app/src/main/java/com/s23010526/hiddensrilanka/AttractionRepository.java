@@ -0,0 +1,263 @@
+package com.s23010526.hiddensrilanka;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * AttractionRepository - Process-wide, live copy of every attraction
+ *
+ * One collection-group snapshot listener over every
+ * cities/{city}/attractionSummaries subcollection - the summaries written next
+ * to the documents AddLocationActivity and DataSeeder create - feeds the map
+ * and the shared search index. Home pages its own city and category queries
+ * instead of subscribing, so the island-wide download only happens while the
+ * map is open, but hands every row it loads to {@link #seed}: until the
+ * listener's first full listing arrives, those rows are what a new subscriber
+ * receives, so the map opened from Home draws at once from data already in memory.
+ *
+ * Subscribers are reference counted: the first one starts the listener and it
+ * stops {@link #GRACE_PERIOD_MS} after the last one leaves, so moving between
+ * screens never restarts the download. A subscriber that joins while data is
+ * already in memory receives it straight away.
+ *
+ * Snapshots are converted and added to the shared search and spatial indexes on
+ * a background thread; subscribers are always called on the main thread and
+ * must subscribe and unsubscribe from it.
+ */
+public class AttractionRepository {
+
+    private static final String TAG = "AttractionRepository";
+    private static final long GRACE_PERIOD_MS = 60_000;
+
+    /**
+     * Receives the full attraction list whenever it changes
+     */
+    public interface Subscriber {
+        void onAttractionsChanged(List<Attraction> attractions);
+
+        void onLoadFailed(Exception exception);
+    }
+
+    private static AttractionRepository instance;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor();
+    private final Runnable stopListening = this::stopListening;
+
+    // Main thread only
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private ListenerRegistration registration;
+    private List<Attraction> latest; // null until the first snapshot arrives
+
+    // snapshotExecutor only - documentId -> attraction
+    private final Map<String, Attraction> attractionsById = new LinkedHashMap<>();
+    private boolean live = false; // A full listing has arrived and the listener is still running
+    private final Set<String> seededIds = new HashSet<>(); // Held only because another screen seeded them
+
+    public static synchronized AttractionRepository getInstance() {
+        if (instance == null) {
+            instance = new AttractionRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * Start receiving attractions; the listener starts if nobody else is subscribed
+     */
+    public void subscribe(Subscriber subscriber) {
+        mainHandler.removeCallbacks(stopListening);
+        if (subscribers.contains(subscriber)) {
+            return;
+        }
+        subscribers.add(subscriber);
+        if (registration == null) {
+            startListening();
+        }
+
+        if (latest != null) {
+            // Whatever is in memory now, fresher data follows from the listener
+            final List<Attraction> current = latest;
+            mainHandler.post(() -> {
+                if (subscribers.contains(subscriber)) {
+                    subscriber.onAttractionsChanged(current);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stop receiving attractions; the listener stops after a grace period once nobody is left
+     */
+    public void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber) && subscribers.isEmpty()) {
+            mainHandler.postDelayed(stopListening, GRACE_PERIOD_MS);
+        }
+    }
+
+    private void startListening() {
+        Log.d(TAG, "Starting attraction listener");
+        // Older databases get their summaries once, from whichever client claims the migration;
+        // they then arrive through this listener
+        SummaryMigration.ensure(FirebaseFirestore.getInstance(), null);
+        // The first snapshot of every registration is a full listing, not a delta
+        final boolean[] firstSnapshot = {true};
+        registration = FirebaseFirestore.getInstance()
+                .collectionGroup(AttractionSummaries.SUMMARY_COLLECTION)
+                .addSnapshotListener(snapshotExecutor, (snapshot, error) -> {
+                    if (error != null) {
+                        Log.w(TAG, "Attraction listener failed", error);
+                        mainHandler.post(() -> onListenerFailed(error));
+                        return;
+                    }
+                    if (snapshot == null) {
+                        return;
+                    }
+                    applySnapshot(snapshot, firstSnapshot[0]);
+                    firstSnapshot[0] = false;
+                });
+    }
+
+    private void stopListening() {
+        if (registration != null) {
+            Log.d(TAG, "No subscribers left, stopping attraction listener");
+            registration.remove();
+            registration = null;
+            snapshotExecutor.execute(() -> live = false);
+        }
+    }
+
+    private void onListenerFailed(Exception error) {
+        // Firestore drops a failed listener; the next subscriber starts a new one
+        registration = null;
+        snapshotExecutor.execute(() -> live = false);
+        for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+            subscriber.onLoadFailed(error);
+        }
+    }
+
+    /**
+     * Offer attractions another screen loaded by its own query
+     *
+     * Ignored while the listener is live, since it already holds fresher data;
+     * otherwise they are published to subscribers straight away and replaced by
+     * the next full listing. The caller has already added them to the shared
+     * indexes.
+     */
+    public void seed(List<Attraction> attractions) {
+        final List<Attraction> rows = new ArrayList<>(attractions);
+        snapshotExecutor.execute(() -> {
+            if (live) {
+                return;
+            }
+            boolean added = false;
+            for (Attraction attraction : rows) {
+                String id = attraction.getDocumentId();
+                if (id != null && !attraction.isPlaceholder()) {
+                    if (attractionsById.put(id, attraction) == null) {
+                        seededIds.add(id);
+                    }
+                    added = true;
+                }
+            }
+            if (added) {
+                publish();
+            }
+        });
+    }
+
+    /**
+     * Fold a snapshot into the in-memory copy and the shared indexes, then publish it
+     */
+    private void applySnapshot(QuerySnapshot snapshot, boolean isFullListing) {
+        List<Attraction> changed = new ArrayList<>();
+        Set<String> removedIds = new HashSet<>();
+
+        if (isFullListing) {
+            // Anything removed while the listener was stopped is simply absent here. Seeded
+            // rows are dropped from this copy but left in the indexes, which their screen filled.
+            live = true;
+            removedIds.addAll(attractionsById.keySet());
+            removedIds.removeAll(seededIds);
+            seededIds.clear();
+            attractionsById.clear();
+            for (DocumentSnapshot document : snapshot.getDocuments()) {
+                Attraction attraction = convert(document);
+                if (attraction != null) {
+                    attractionsById.put(attraction.getDocumentId(), attraction);
+                    removedIds.remove(attraction.getDocumentId());
+                    changed.add(attraction);
+                }
+            }
+        } else {
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                String id = change.getDocument().getId();
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    attractionsById.remove(id);
+                    removedIds.add(id);
+                    continue;
+                }
+                Attraction attraction = convert(change.getDocument());
+                if (attraction != null) {
+                    attractionsById.put(id, attraction);
+                    changed.add(attraction);
+                }
+            }
+        }
+
+        AttractionSearchIndex searchIndex = AttractionSearchIndex.getInstance();
+        AttractionSpatialIndex spatialIndex = AttractionSpatialIndex.getShared();
+        for (String id : removedIds) {
+            Attraction removed = new Attraction();
+            removed.setDocumentId(id);
+            searchIndex.remove(id);
+            spatialIndex.remove(removed);
+        }
+        searchIndex.addAll(changed);
+        for (Attraction attraction : changed) {
+            if (attraction.hasLocation()) {
+                spatialIndex.insert(attraction);
+            }
+        }
+
+        Log.d(TAG, "Attraction snapshot: " + changed.size() + " changed, " + removedIds.size()
+                + " removed, " + attractionsById.size() + " total");
+        publish();
+    }
+
+    // snapshotExecutor only
+    private void publish() {
+        final List<Attraction> published = Collections.unmodifiableList(new ArrayList<>(attractionsById.values()));
+        mainHandler.post(() -> {
+            latest = published;
+            for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+                subscriber.onAttractionsChanged(published);
+            }
+        });
+    }
+
+    private static Attraction convert(DocumentSnapshot document) {
+        try {
+            return AttractionSummaries.toAttraction(document);
+        } catch (Exception e) {
+            Log.w(TAG, "Error parsing attraction " + document.getId() + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.s23010526.hiddensrilanka;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * AttractionSearchIndex - Shared on-device inverted index for attraction search
+ *
+ * Name, category, city and description are split into tokens that are
+ * lower-cased and stripped of diacritics ("Māligāwa" matches "maligawa"). Each
+ * token maps to the attractions containing it, weighted by the field it came
+ * from. Tokens live in a sorted map, so a query token is answered as a prefix
+ * range ("sigi" finds "sigiriya") without looking at any attraction that does
+ * not contain it.
+ *
+ * Every query token must match (AND). An attraction scores the best field
+ * weight each query token reached, doubled for a whole-word match, and results
+ * are ranked by total score, then name.
+ *
+ * Screens add attractions as they load them; re-adding a document ID replaces
+ * the earlier entry, and {@link AttractionRepository} removes deleted ones. All methods are thread-safe.
+ */
+public class AttractionSearchIndex {
+
+    private static final int NAME_WEIGHT = 8;
+    private static final int CATEGORY_WEIGHT = 4;
+    private static final int CITY_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int WHOLE_WORD_MULTIPLIER = 2;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static AttractionSearchIndex instance;
+
+    // token -> (documentId -> summed weight of the fields containing the token)
+    private final TreeMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    private final Map<String, Attraction> attractionsById = new HashMap<>();
+    private final Map<String, Set<String>> tokensById = new HashMap<>();
+    // Summary documents carry no description, so keep the last full one seen
+    private final Map<String, String> descriptionsById = new HashMap<>();
+
+    public static synchronized AttractionSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new AttractionSearchIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Add or replace one attraction; placeholders and unsaved rows are ignored
+     */
+    public synchronized void add(Attraction attraction) {
+        String id = attraction.getDocumentId();
+        if (id == null || attraction.isPlaceholder()) {
+            return;
+        }
+        removeTokens(id);
+
+        if (attraction.getDescription() != null) {
+            descriptionsById.put(id, attraction.getDescription());
+        }
+
+        Map<String, Integer> weights = new HashMap<>();
+        addField(weights, attraction.getName(), NAME_WEIGHT);
+        addField(weights, attraction.getCategory(), CATEGORY_WEIGHT);
+        addField(weights, attraction.getCity(), CITY_WEIGHT);
+        addField(weights, descriptionsById.get(id), DESCRIPTION_WEIGHT);
+
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            Map<String, Integer> documents = postings.get(weight.getKey());
+            if (documents == null) {
+                documents = new HashMap<>();
+                postings.put(weight.getKey(), documents);
+            }
+            documents.put(id, weight.getValue());
+        }
+        tokensById.put(id, weights.keySet());
+        attractionsById.put(id, attraction);
+    }
+
+    public synchronized void addAll(Collection<Attraction> attractions) {
+        for (Attraction attraction : attractions) {
+            add(attraction);
+        }
+    }
+
+    /**
+     * Forget an attraction, e.g. after its document was deleted
+     */
+    public synchronized void remove(String documentId) {
+        removeTokens(documentId);
+        attractionsById.remove(documentId);
+        descriptionsById.remove(documentId);
+    }
+
+    /**
+     * Ranked attractions matching every token of the query
+     *
+     * @param query Free text; case and diacritics are ignored
+     * @param limit Maximum number of results
+     * @return Best match first; empty for a blank query
+     */
+    public synchronized List<Attraction> search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Start from the rarest query token, then only verify its candidates against the rest
+        Collections.sort(queryTokens, (a, b) -> Integer.compare(postingCount(a), postingCount(b)));
+
+        Map<String, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> term : prefixRange(queryTokens.get(0)).entrySet()) {
+            int multiplier = term.getKey().equals(queryTokens.get(0)) ? WHOLE_WORD_MULTIPLIER : 1;
+            for (Map.Entry<String, Integer> posting : term.getValue().entrySet()) {
+                int score = posting.getValue() * multiplier;
+                Integer best = scores.get(posting.getKey());
+                if (best == null || score > best) {
+                    scores.put(posting.getKey(), score);
+                }
+            }
+        }
+
+        for (int i = 1; i < queryTokens.size() && !scores.isEmpty(); i++) {
+            String queryToken = queryTokens.get(i);
+            Iterator<Map.Entry<String, Integer>> candidates = scores.entrySet().iterator();
+            while (candidates.hasNext()) {
+                Map.Entry<String, Integer> candidate = candidates.next();
+                int score = bestScore(candidate.getKey(), queryToken);
+                if (score == 0) {
+                    candidates.remove();
+                } else {
+                    candidate.setValue(candidate.getValue() + score);
+                }
+            }
+        }
+
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        Collections.sort(ranked, (a, b) -> {
+            int byScore = Integer.compare(b.getValue(), a.getValue());
+            return byScore != 0 ? byScore : compareNames(attractionsById.get(a.getKey()), attractionsById.get(b.getKey()));
+        });
+
+        List<Attraction> results = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && results.size() < limit; i++) {
+            results.add(attractionsById.get(ranked.get(i).getKey()));
+        }
+        return results;
+    }
+
+    public synchronized int size() {
+        return attractionsById.size();
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        attractionsById.clear();
+        tokensById.clear();
+        descriptionsById.clear();
+    }
+
+    /**
+     * Lower-case and strip diacritics so "Ūva" and "uva" compare equal
+     */
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Folded tokens of a text, split on anything that is not a letter or digit
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private SortedMap<String, Map<String, Integer>> prefixRange(String prefix) {
+        return postings.subMap(prefix, prefix + Character.MAX_VALUE);
+    }
+
+    // Documents under every indexed token with this prefix, counting repeats
+    private int postingCount(String prefix) {
+        int count = 0;
+        for (Map<String, Integer> documents : prefixRange(prefix).values()) {
+            count += documents.size();
+        }
+        return count;
+    }
+
+    // Best weight any of the document's tokens scores for a query token, 0 if none match
+    private int bestScore(String id, String queryToken) {
+        int best = 0;
+        for (String token : tokensById.get(id)) {
+            if (token.startsWith(queryToken)) {
+                int multiplier = token.equals(queryToken) ? WHOLE_WORD_MULTIPLIER : 1;
+                best = Math.max(best, postings.get(token).get(id) * multiplier);
+            }
+        }
+        return best;
+    }
+
+    private static void addField(Map<String, Integer> weights, String text, int fieldWeight) {
+        // Each field counts once per token, however often the word repeats
+        for (String token : new HashSet<>(tokenize(text))) {
+            Integer weight = weights.get(token);
+            weights.put(token, weight == null ? fieldWeight : weight + fieldWeight);
+        }
+    }
+
+    private void removeTokens(String id) {
+        Set<String> tokens = tokensById.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Map<String, Integer> documents = postings.get(token);
+            if (documents != null) {
+                documents.remove(id);
+                if (documents.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    private static int compareNames(Attraction a, Attraction b) {
+        String nameA = a.getName() != null ? a.getName() : "";
+        String nameB = b.getName() != null ? b.getName() : "";
+        return nameA.compareToIgnoreCase(nameB);
+    }
+}
@@ -0,0 +1,347 @@
+package com.s23010526.hiddensrilanka;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * AttractionSpatialIndex - Point quadtree over attraction coordinates
+ *
+ * Each node covers a latitude/longitude rectangle and splits into four quadrants
+ * once it holds more than {@link #NODE_CAPACITY} attractions, so dense areas get
+ * small cells and empty sea gets none. Supported queries:
+ *
+ * - {@link #query}: everything inside a bounding box (the map viewport)
+ * - {@link #nearest}: the k closest attractions to a point, nearest first
+ * - {@link #withinRadius}: everything within N km of a point, nearest first
+ *
+ * Nearest and radius searches visit nodes in order of their great-circle
+ * distance from the point and stop as soon as no unvisited node can contain a
+ * closer match, so they touch a handful of cells instead of every attraction.
+ *
+ * Attractions are keyed by document ID: inserting an ID again moves the
+ * existing entry. All methods are thread-safe. Screens share one index of
+ * everything they have loaded through {@link #getShared()}.
+ */
+public class AttractionSpatialIndex {
+
+    static final int NODE_CAPACITY = 16;
+    private static final int MAX_DEPTH = 24; // Cells of a few metres; co-located points share a leaf
+
+    private static AttractionSpatialIndex shared;
+
+    private static final class Node {
+        final double minLatitude, minLongitude, maxLatitude, maxLongitude;
+        final int depth;
+        List<Attraction> items = new ArrayList<>();
+        Node[] children; // null for leaves; order SW, SE, NW, NE
+
+        Node(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude, int depth) {
+            this.minLatitude = minLatitude;
+            this.minLongitude = minLongitude;
+            this.maxLatitude = maxLatitude;
+            this.maxLongitude = maxLongitude;
+            this.depth = depth;
+        }
+
+        boolean isLeaf() {
+            return children == null;
+        }
+
+        Node childFor(double latitude, double longitude) {
+            double midLatitude = (minLatitude + maxLatitude) / 2;
+            double midLongitude = (minLongitude + maxLongitude) / 2;
+            int index = (latitude >= midLatitude ? 2 : 0) + (longitude >= midLongitude ? 1 : 0);
+            return children[index];
+        }
+    }
+
+    // A node or attraction waiting in the best-first search queue
+    private static final class Candidate {
+        final double distanceKm;
+        final Node node;
+        final Attraction attraction;
+
+        Candidate(double distanceKm, Node node, Attraction attraction) {
+            this.distanceKm = distanceKm;
+            this.node = node;
+            this.attraction = attraction;
+        }
+    }
+
+    private Node root = newRoot();
+    private final Map<String, Attraction> attractionsById = new HashMap<>();
+    private int size = 0;
+
+    public AttractionSpatialIndex() {
+    }
+
+    public AttractionSpatialIndex(Collection<Attraction> attractions) {
+        insertAll(attractions);
+    }
+
+    /**
+     * The process-wide index of every attraction any screen has loaded
+     */
+    public static synchronized AttractionSpatialIndex getShared() {
+        if (shared == null) {
+            shared = new AttractionSpatialIndex();
+        }
+        return shared;
+    }
+
+    /**
+     * Add an attraction, or move it if its document ID is already indexed
+     */
+    public synchronized void insert(Attraction attraction) {
+        String id = attraction.getDocumentId();
+        if (id != null) {
+            Attraction previous = attractionsById.get(id);
+            if (previous != null) {
+                removeFromTree(previous);
+            }
+            attractionsById.put(id, attraction);
+        }
+        insertIntoTree(root, attraction);
+        size++;
+    }
+
+    public synchronized void insertAll(Collection<Attraction> attractions) {
+        for (Attraction attraction : attractions) {
+            insert(attraction);
+        }
+    }
+
+    /**
+     * Remove an attraction by document ID, or by identity when it has none
+     *
+     * @return Whether anything was removed
+     */
+    public synchronized boolean remove(Attraction attraction) {
+        Attraction indexed = attraction;
+        if (attraction.getDocumentId() != null) {
+            indexed = attractionsById.remove(attraction.getDocumentId());
+            if (indexed == null) {
+                return false;
+            }
+        }
+        return removeFromTree(indexed);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        root = newRoot();
+        attractionsById.clear();
+        size = 0;
+    }
+
+    /**
+     * Attractions inside a latitude/longitude box (edges included)
+     */
+    public synchronized List<Attraction> query(double minLatitude, double minLongitude,
+                                               double maxLatitude, double maxLongitude) {
+        List<Attraction> results = new ArrayList<>();
+        collectInBox(root, minLatitude, minLongitude, maxLatitude, maxLongitude, results);
+        return results;
+    }
+
+    /**
+     * The k attractions closest to a point, nearest first
+     */
+    public synchronized List<Attraction> nearest(double latitude, double longitude, int k) {
+        return search(latitude, longitude, k, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Every attraction within radiusKm of a point, nearest first
+     */
+    public synchronized List<Attraction> withinRadius(double latitude, double longitude, double radiusKm) {
+        return search(latitude, longitude, Integer.MAX_VALUE, radiusKm);
+    }
+
+    /**
+     * Best-first search: nodes and attractions share one queue ordered by distance,
+     * so attractions come off it in exactly nearest-first order
+     */
+    private List<Attraction> search(double latitude, double longitude, int limit, double maxDistanceKm) {
+        List<Attraction> results = new ArrayList<>();
+        if (limit <= 0 || size == 0) {
+            return results;
+        }
+
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(64,
+                (a, b) -> Double.compare(a.distanceKm, b.distanceKm));
+        queue.add(new Candidate(minDistanceKm(root, latitude, longitude), root, null));
+
+        while (!queue.isEmpty() && results.size() < limit) {
+            Candidate next = queue.poll();
+            if (next.distanceKm > maxDistanceKm) {
+                break; // Everything left is farther still
+            }
+
+            if (next.attraction != null) {
+                results.add(next.attraction);
+                continue;
+            }
+
+            Node node = next.node;
+            if (node.isLeaf()) {
+                for (Attraction attraction : node.items) {
+                    double distance = GeoUtils.distanceKm(latitude, longitude,
+                            attraction.getLatitude(), attraction.getLongitude());
+                    if (distance <= maxDistanceKm) {
+                        queue.add(new Candidate(distance, null, attraction));
+                    }
+                }
+            } else {
+                for (Node child : node.children) {
+                    double distance = minDistanceKm(child, latitude, longitude);
+                    if (distance <= maxDistanceKm) {
+                        queue.add(new Candidate(distance, child, null));
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private void insertIntoTree(Node node, Attraction attraction) {
+        while (!node.isLeaf()) {
+            node = node.childFor(attraction.getLatitude(), attraction.getLongitude());
+        }
+        node.items.add(attraction);
+        if (node.items.size() > NODE_CAPACITY && node.depth < MAX_DEPTH) {
+            split(node);
+        }
+    }
+
+    private void split(Node node) {
+        double midLatitude = (node.minLatitude + node.maxLatitude) / 2;
+        double midLongitude = (node.minLongitude + node.maxLongitude) / 2;
+        int depth = node.depth + 1;
+        node.children = new Node[]{
+                new Node(node.minLatitude, node.minLongitude, midLatitude, midLongitude, depth),
+                new Node(node.minLatitude, midLongitude, midLatitude, node.maxLongitude, depth),
+                new Node(midLatitude, node.minLongitude, node.maxLatitude, midLongitude, depth),
+                new Node(midLatitude, midLongitude, node.maxLatitude, node.maxLongitude, depth)
+        };
+        List<Attraction> items = node.items;
+        node.items = null;
+        for (Attraction item : items) {
+            insertIntoTree(node, item);
+        }
+    }
+
+    private boolean removeFromTree(Attraction attraction) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        while (!node.isLeaf()) {
+            node = node.childFor(attraction.getLatitude(), attraction.getLongitude());
+            path.add(node);
+        }
+
+        boolean removed = false;
+        for (int i = 0; i < node.items.size(); i++) {
+            if (node.items.get(i) == attraction) {
+                node.items.remove(i);
+                removed = true;
+                break;
+            }
+        }
+        if (!removed) {
+            return false;
+        }
+        size--;
+
+        // Fold parents whose whole subtree fits back into one leaf
+        for (int i = path.size() - 2; i >= 0; i--) {
+            Node parent = path.get(i);
+            List<Attraction> collected = new ArrayList<>();
+            if (!collectIfAtMost(parent, NODE_CAPACITY, collected)) {
+                break;
+            }
+            parent.children = null;
+            parent.items = collected;
+        }
+        return true;
+    }
+
+    // Gather a subtree's attractions, giving up once there are more than max
+    private static boolean collectIfAtMost(Node node, int max, List<Attraction> collected) {
+        if (node.isLeaf()) {
+            collected.addAll(node.items);
+            return collected.size() <= max;
+        }
+        for (Node child : node.children) {
+            if (!collectIfAtMost(child, max, collected)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void collectInBox(Node node, double minLatitude, double minLongitude,
+                                     double maxLatitude, double maxLongitude, List<Attraction> results) {
+        if (node.minLatitude > maxLatitude || node.maxLatitude < minLatitude
+                || node.minLongitude > maxLongitude || node.maxLongitude < minLongitude) {
+            return;
+        }
+        if (!node.isLeaf()) {
+            for (Node child : node.children) {
+                collectInBox(child, minLatitude, minLongitude, maxLatitude, maxLongitude, results);
+            }
+            return;
+        }
+        for (Attraction attraction : node.items) {
+            double latitude = attraction.getLatitude();
+            double longitude = attraction.getLongitude();
+            if (latitude >= minLatitude && latitude <= maxLatitude
+                    && longitude >= minLongitude && longitude <= maxLongitude) {
+                results.add(attraction);
+            }
+        }
+    }
+
+    /**
+     * Smallest great-circle distance from a point to any point of a node's rectangle
+     *
+     * Inside the rectangle's longitude band the closest point lies straight north
+     * or south. Otherwise it lies on the nearer edge meridian, at the latitude
+     * closest to the point along that meridian, clamped to the rectangle.
+     */
+    private static double minDistanceKm(Node node, double latitude, double longitude) {
+        if (longitude >= node.minLongitude && longitude <= node.maxLongitude) {
+            double latitudeGap = Math.max(0, Math.max(node.minLatitude - latitude, latitude - node.maxLatitude));
+            return GeoUtils.EARTH_RADIUS_KM * Math.toRadians(latitudeGap);
+        }
+
+        double toMin = longitudeGap(longitude, node.minLongitude);
+        double toMax = longitudeGap(longitude, node.maxLongitude);
+        double edgeLongitude = toMin <= toMax ? node.minLongitude : node.maxLongitude;
+        double gap = Math.min(toMin, toMax);
+        if (gap >= 90) {
+            return 0; // Formula below needs gap < 90 degrees; 0 is always a safe lower bound
+        }
+
+        double footLatitude = Math.toDegrees(Math.atan(
+                Math.tan(Math.toRadians(latitude)) / Math.cos(Math.toRadians(gap))));
+        double closestLatitude = Math.max(node.minLatitude, Math.min(node.maxLatitude, footLatitude));
+        return GeoUtils.distanceKm(latitude, longitude, closestLatitude, edgeLongitude);
+    }
+
+    private static double longitudeGap(double a, double b) {
+        double gap = Math.abs(a - b) % 360;
+        return gap > 180 ? 360 - gap : gap;
+    }
+
+    private static Node newRoot() {
+        return new Node(-90, -180, 90, 180, 0);
+    }
+}
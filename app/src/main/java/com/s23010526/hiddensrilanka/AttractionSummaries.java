@@ -0,0 +1,194 @@
+package com.s23010526.hiddensrilanka;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * AttractionSummaries - Lightweight card projections of attraction documents
+ *
+ * Every cities/{city}/attractions/{id} document has a twin at
+ * cities/{city}/attractionSummaries/{id} holding only what a list card or map
+ * marker shows: name, category, location fields and the first image. Lists and
+ * the map page through summaries (a few hundred bytes each instead of a full
+ * description and image list); the full document is fetched only when a detail
+ * screen opens.
+ *
+ * Both documents are written in one batch so they never drift apart.
+ */
+public final class AttractionSummaries {
+
+    private static final String TAG = "AttractionSummaries";
+
+    public static final String FULL_COLLECTION = "attractions";
+    public static final String SUMMARY_COLLECTION = "attractionSummaries";
+
+    private static final String FIELD_THUMBNAIL_URL = "thumbnailUrl";
+    private static final String FIELD_IMAGE_COUNT = "imageCount";
+    private static final int BACKFILL_BATCH_SIZE = 400; // Firestore allows 500 writes per batch
+
+    // Fields copied verbatim from the full document into its summary
+    private static final String[] SUMMARY_FIELDS = {
+            "name", "category", "city", "province", "contributedAt", "latitude", "longitude", "geohash",
+            "locationApproximate"
+    };
+
+    private AttractionSummaries() {
+    }
+
+    /**
+     * Build the summary fields for a full attraction document
+     */
+    public static Map<String, Object> fromFullData(Map<String, Object> fullData) {
+        Map<String, Object> summary = new HashMap<>();
+        for (String field : SUMMARY_FIELDS) {
+            if (fullData.containsKey(field)) {
+                summary.put(field, fullData.get(field));
+            }
+        }
+
+        Object images = fullData.get("images");
+        if (images instanceof List && !((List<?>) images).isEmpty()) {
+            summary.put(FIELD_THUMBNAIL_URL, String.valueOf(((List<?>) images).get(0)));
+            summary.put(FIELD_IMAGE_COUNT, ((List<?>) images).size());
+        } else if (images instanceof String) {
+            // Very old documents stored a single URL string
+            summary.put(FIELD_THUMBNAIL_URL, images);
+            summary.put(FIELD_IMAGE_COUNT, 1);
+        }
+        return summary;
+    }
+
+    /**
+     * The summary document that mirrors a full attraction document
+     */
+    public static DocumentReference summaryReferenceFor(DocumentReference fullDocument) {
+        DocumentReference city = fullDocument.getParent().getParent();
+        if (city == null) {
+            throw new IllegalArgumentException("Not a cities/{city}/attractions document: " + fullDocument.getPath());
+        }
+        return city.collection(SUMMARY_COLLECTION).document(fullDocument.getId());
+    }
+
+    /**
+     * Queue a full document and its summary on the same batch
+     */
+    public static void setWithSummary(WriteBatch batch, DocumentReference fullDocument, Map<String, Object> fullData) {
+        batch.set(fullDocument, fullData);
+        batch.set(summaryReferenceFor(fullDocument), fromFullData(fullData));
+    }
+
+    /**
+     * Convert a summary document into a card-ready Attraction
+     * Description, contributor and the remaining images stay unset until the
+     * full document is loaded.
+     */
+    public static Attraction toAttraction(DocumentSnapshot summary) {
+        Attraction attraction = new Attraction();
+        attraction.setDocumentId(summary.getId());
+        attraction.setName(summary.getString("name"));
+        attraction.setCategory(summary.getString("category"));
+        attraction.setProvince(summary.getString("province"));
+        attraction.setGeohash(summary.getString("geohash"));
+
+        Long contributedAt = summary.getLong("contributedAt");
+        attraction.setContributedAt(contributedAt != null ? contributedAt : 0L);
+        Double latitude = summary.getDouble("latitude");
+        Double longitude = summary.getDouble("longitude");
+        attraction.setLatitude(latitude != null ? latitude : 0.0);
+        attraction.setLongitude(longitude != null ? longitude : 0.0);
+        attraction.setLocationApproximate(Boolean.TRUE.equals(summary.getBoolean("locationApproximate")));
+
+        List<String> images = new ArrayList<>();
+        String thumbnailUrl = summary.getString(FIELD_THUMBNAIL_URL);
+        if (thumbnailUrl != null && !thumbnailUrl.isEmpty()) {
+            images.add(thumbnailUrl);
+        }
+        attraction.setImages(images);
+
+        DocumentReference city = summary.getReference().getParent().getParent();
+        String cityField = summary.getString("city");
+        attraction.setCity(cityField != null ? cityField : city != null ? city.getId() : null);
+        if (city != null) {
+            attraction.setDocumentPath(city.collection(FULL_COLLECTION).document(summary.getId()).getPath());
+        }
+        return attraction;
+    }
+
+    /**
+     * Path of the full document behind a card, or null when it cannot be known
+     */
+    public static String fullDocumentPath(Attraction attraction) {
+        if (attraction.getDocumentPath() != null) {
+            return attraction.getDocumentPath();
+        }
+        if (attraction.isPlaceholder() || attraction.getDocumentId() == null || attraction.getCity() == null) {
+            return null;
+        }
+        return "cities/" + attraction.getCity() + "/" + FULL_COLLECTION + "/" + attraction.getDocumentId();
+    }
+
+    /**
+     * Write summaries for a city's attractions that lack one
+     * Run by {@link SummaryMigration#repairCity} when a reader finds a city with
+     * fewer summaries than its manifest counts, or no manifest at all. Databases
+     * as a whole are brought up to date once by {@link SummaryMigration}.
+     */
+    public static void backfillCity(FirebaseFirestore firestore, String city) {
+        DocumentReference cityDocument = firestore.collection("cities").document(city);
+        cityDocument.collection(SUMMARY_COLLECTION).get().addOnSuccessListener(summaries -> {
+            Set<String> summarized = new HashSet<>();
+            for (QueryDocumentSnapshot summary : summaries) {
+                summarized.add(summary.getId());
+            }
+
+            cityDocument.collection(FULL_COLLECTION).get().addOnSuccessListener(fullDocuments -> {
+                List<DocumentSnapshot> missing = new ArrayList<>();
+                for (QueryDocumentSnapshot document : fullDocuments) {
+                    if (!summarized.contains(document.getId())) {
+                        missing.add(document);
+                    }
+                }
+                writeSummaries(firestore, city, missing);
+            }).addOnFailureListener(e -> Log.w(TAG, "Backfill read failed for " + city + ": " + e.getMessage()));
+        }).addOnFailureListener(e -> Log.w(TAG, "Backfill read failed for " + city + ": " + e.getMessage()));
+    }
+
+    /**
+     * Write summaries for full documents, in batches
+     *
+     * @return One task per batch
+     */
+    static List<Task<Void>> writeSummaries(FirebaseFirestore firestore, String scope, List<DocumentSnapshot> documents) {
+        List<Task<Void>> writes = new ArrayList<>();
+        if (documents.isEmpty()) {
+            return writes;
+        }
+        Log.d(TAG, "Backfilling " + documents.size() + " summaries for " + scope);
+        for (int start = 0; start < documents.size(); start += BACKFILL_BATCH_SIZE) {
+            WriteBatch batch = firestore.batch();
+            int end = Math.min(documents.size(), start + BACKFILL_BATCH_SIZE);
+            for (DocumentSnapshot document : documents.subList(start, end)) {
+                Map<String, Object> data = document.getData();
+                if (data != null) {
+                    batch.set(summaryReferenceFor(document.getReference()), fromFullData(data));
+                }
+            }
+            writes.add(batch.commit().addOnFailureListener(e ->
+                    Log.w(TAG, "Backfill write failed for " + scope + ": " + e.getMessage())));
+        }
+        return writes;
+    }
+}
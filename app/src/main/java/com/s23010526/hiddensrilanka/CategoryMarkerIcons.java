@@ -0,0 +1,136 @@
+package com.s23010526.hiddensrilanka;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CategoryMarkerIcons - One pin icon per attraction category, shared by every marker
+ *
+ * Each category's pin is drawn once, the first time a marker needs it, and the
+ * BitmapDescriptor is reused from then on, so thousands of markers share at most
+ * {@link AttractionCategories#ALL} bitmaps. Categories are resolved through
+ * {@link AttractionCategories#canonical}, so unknown spellings share the "More"
+ * pin instead of creating new bitmaps.
+ *
+ * The cache is dropped when the system reports memory pressure or the screen
+ * density changes; markers already on the map keep their icons and the next
+ * request simply redraws the pin. Use {@link #getAnchorV()} as the marker's
+ * vertical anchor so the tip of the pin sits on the location.
+ */
+public class CategoryMarkerIcons implements ComponentCallbacks2 {
+
+    private static final String TAG = "CategoryMarkerIcons";
+    private static final int PIN_WIDTH_DP = 30;
+    private static final int PIN_HEIGHT_DP = 40;
+    private static final float BORDER_DP = 2.5f;
+
+    private static CategoryMarkerIcons instance;
+
+    private final Context context;
+    private final Map<String, BitmapDescriptor> icons = new HashMap<>();
+
+    private CategoryMarkerIcons(Context context) {
+        this.context = context;
+    }
+
+    public static synchronized CategoryMarkerIcons getInstance(Context context) {
+        if (instance == null) {
+            instance = new CategoryMarkerIcons(context.getApplicationContext());
+            instance.context.registerComponentCallbacks(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * The cached pin for a category, drawn on first use
+     */
+    public synchronized BitmapDescriptor get(String category) {
+        String canonical = AttractionCategories.canonical(category);
+        BitmapDescriptor icon = icons.get(canonical);
+        if (icon == null) {
+            icon = BitmapDescriptorFactory.fromBitmap(drawPin(ContextCompat.getColor(context,
+                    AttractionCategories.colorRes(canonical))));
+            icons.put(canonical, icon);
+        }
+        return icon;
+    }
+
+    /**
+     * Pins are anchored at the bottom centre
+     */
+    public float getAnchorV() {
+        return 1f;
+    }
+
+    public synchronized void clear() {
+        icons.clear();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            Log.d(TAG, "Releasing " + icons.size() + " marker icons (trim level " + level + ")");
+            clear();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        // Icons are drawn for the current density
+        clear();
+    }
+
+    /**
+     * White-bordered teardrop pin filled with the category colour, with a white centre dot
+     */
+    private Bitmap drawPin(int color) {
+        float density = context.getResources().getDisplayMetrics().density;
+        int width = Math.round(PIN_WIDTH_DP * density);
+        int height = Math.round(PIN_HEIGHT_DP * density);
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+
+        float border = BORDER_DP * density;
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(ContextCompat.getColor(context, R.color.white));
+        canvas.drawPath(pinPath(width, height, 0), paint);
+        paint.setColor(color);
+        canvas.drawPath(pinPath(width, height, border), paint);
+
+        float radius = width / 2f;
+        paint.setColor(ContextCompat.getColor(context, R.color.white));
+        canvas.drawCircle(radius, radius, radius * 0.32f, paint);
+        return bitmap;
+    }
+
+    // A circular head over a point at the bottom centre, shrunk by inset on every side
+    private static Path pinPath(int width, int height, float inset) {
+        float radius = width / 2f;
+        Path path = new Path();
+        path.addArc(new RectF(inset, inset, width - inset, width - inset), 140, 260);
+        path.lineTo(radius, height - inset * 1.6f);
+        path.close();
+        return path;
+    }
+}
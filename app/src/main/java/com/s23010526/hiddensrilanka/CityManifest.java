@@ -0,0 +1,184 @@
+package com.s23010526.hiddensrilanka;
+
+import android.util.Log;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * CityManifest - Attraction counts and a last-modified stamp on each cities/{city} document
+ *
+ * Fields on the city document:
+ * - attractionCount: number of attractions in the city
+ * - categoryCounts: canonical category (see {@link AttractionCategories}) -> count
+ * - lastModified: server time of the last change
+ *
+ * Writers add {@link #recordAddition} to the same batch that creates the
+ * attraction, so the document and the manifest change together or not at all;
+ * the counts use FieldValue.increment, so concurrent contributors never lose an
+ * update. Readers fetch the single city document and compare it with what they
+ * cached to decide whether the attractions subcollection needs reading at all.
+ *
+ * Cities populated before manifests existed, or whose manifest no longer matches
+ * what a reader finds, are recounted by {@link #rebuild} - from
+ * {@link SummaryMigration}, by the one client that claims the job, never from
+ * the read path.
+ */
+public class CityManifest {
+
+    private static final String TAG = "CityManifest";
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    public static final String FIELD_ATTRACTION_COUNT = "attractionCount";
+    public static final String FIELD_CATEGORY_COUNTS = "categoryCounts";
+    public static final String FIELD_LAST_MODIFIED = "lastModified";
+
+    private final long attractionCount;
+    private final Map<String, Long> categoryCounts;
+    private final long lastModified;
+
+    private CityManifest(long attractionCount, Map<String, Long> categoryCounts, long lastModified) {
+        this.attractionCount = attractionCount;
+        this.categoryCounts = categoryCounts;
+        this.lastModified = lastModified;
+    }
+
+    public static DocumentReference cityDocument(FirebaseFirestore firestore, String city) {
+        return firestore.collection("cities").document(city);
+    }
+
+    /**
+     * Count a new attraction in its city's manifest, in the batch that creates it
+     *
+     * @param batch Batch that also writes the attraction document
+     * @param fullDocument The new cities/{city}/attractions/{id} document
+     * @param category The attraction's category as stored
+     */
+    public static void recordAddition(WriteBatch batch, DocumentReference fullDocument, String category) {
+        DocumentReference city = fullDocument.getParent().getParent();
+        if (city == null) {
+            return;
+        }
+        Map<String, Object> categoryIncrement = new HashMap<>();
+        categoryIncrement.put(AttractionCategories.canonical(category), FieldValue.increment(1));
+
+        Map<String, Object> manifest = new HashMap<>();
+        manifest.put(FIELD_ATTRACTION_COUNT, FieldValue.increment(1));
+        manifest.put(FIELD_CATEGORY_COUNTS, categoryIncrement);
+        manifest.put(FIELD_LAST_MODIFIED, FieldValue.serverTimestamp());
+        batch.set(city, manifest, SetOptions.merge());
+    }
+
+    /**
+     * Read the manifest from a city document
+     *
+     * @return The manifest, or null when the city has none yet
+     */
+    public static CityManifest fromDocument(DocumentSnapshot city) {
+        Long count = city.getLong(FIELD_ATTRACTION_COUNT);
+        Timestamp modified = city.getTimestamp(FIELD_LAST_MODIFIED,
+                DocumentSnapshot.ServerTimestampBehavior.ESTIMATE);
+        if (!city.exists() || count == null || modified == null) {
+            return null;
+        }
+
+        Map<String, Long> categoryCounts = new HashMap<>();
+        Object counts = city.get(FIELD_CATEGORY_COUNTS);
+        if (counts instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) counts).entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    categoryCounts.put(String.valueOf(entry.getKey()), ((Number) entry.getValue()).longValue());
+                }
+            }
+        }
+        return new CityManifest(count, categoryCounts, modified.toDate().getTime());
+    }
+
+    /**
+     * Recount a city from its full attraction documents and overwrite its manifest
+     *
+     * Full documents are counted, not summaries, so the result does not depend on
+     * whether summaries have been backfilled yet. The overwrite is a transaction
+     * that only commits while attractionCount still holds the value seen before
+     * the count: an attraction added in the meantime (its {@link #recordAddition}
+     * changes that field) makes the rebuild start over instead of erasing it.
+     */
+    public static void rebuild(FirebaseFirestore firestore, String city) {
+        rebuild(firestore, city, REBUILD_ATTEMPTS);
+    }
+
+    private static void rebuild(FirebaseFirestore firestore, String city, int attemptsLeft) {
+        DocumentReference cityDocument = cityDocument(firestore, city);
+        cityDocument.get().addOnSuccessListener(before -> {
+            Long countBefore = before.getLong(FIELD_ATTRACTION_COUNT);
+            cityDocument.collection(AttractionSummaries.FULL_COLLECTION).get().addOnSuccessListener(attractions -> {
+                Map<String, Object> categoryCounts = new HashMap<>();
+                for (QueryDocumentSnapshot attraction : attractions) {
+                    String category = AttractionCategories.canonical(attraction.getString("category"));
+                    Object count = categoryCounts.get(category);
+                    categoryCounts.put(category, count == null ? 1L : (Long) count + 1);
+                }
+
+                Map<String, Object> manifest = new HashMap<>();
+                manifest.put(FIELD_ATTRACTION_COUNT, (long) attractions.size());
+                manifest.put(FIELD_CATEGORY_COUNTS, categoryCounts);
+                manifest.put(FIELD_LAST_MODIFIED, FieldValue.serverTimestamp());
+
+                firestore.runTransaction(transaction -> {
+                    DocumentSnapshot current = transaction.get(cityDocument);
+                    if (!current.exists() && attractions.isEmpty()) {
+                        return null; // Never create a city document for a city with nothing in it
+                    }
+                    if (!Objects.equals(countBefore, current.getLong(FIELD_ATTRACTION_COUNT))) {
+                        throw new FirebaseFirestoreException("Attraction added during rebuild",
+                                FirebaseFirestoreException.Code.ABORTED);
+                    }
+                    // mergeFields replaces categoryCounts whole, dropping categories that are gone
+                    transaction.set(cityDocument, manifest,
+                            SetOptions.mergeFields(FIELD_ATTRACTION_COUNT, FIELD_CATEGORY_COUNTS, FIELD_LAST_MODIFIED));
+                    return null;
+                }).addOnSuccessListener(unused ->
+                        Log.d(TAG, "Rebuilt manifest for " + city + ": " + attractions.size() + " attractions")
+                ).addOnFailureListener(e -> {
+                    if (e instanceof FirebaseFirestoreException && attemptsLeft > 1
+                            && ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.ABORTED) {
+                        Log.d(TAG, "Manifest for " + city + " changed during rebuild, recounting");
+                        rebuild(firestore, city, attemptsLeft - 1);
+                    } else {
+                        Log.w(TAG, "Manifest rebuild failed for " + city + ": " + e.getMessage());
+                    }
+                });
+            }).addOnFailureListener(e -> Log.w(TAG, "Manifest rebuild read failed for " + city + ": " + e.getMessage()));
+        }).addOnFailureListener(e -> Log.w(TAG, "Manifest rebuild read failed for " + city + ": " + e.getMessage()));
+    }
+
+    public long getAttractionCount() {
+        return attractionCount;
+    }
+
+    /**
+     * Number of attractions in a category; unknown spellings count as "More"
+     */
+    public long getCategoryCount(String category) {
+        Long count = categoryCounts.get(AttractionCategories.canonical(category));
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Server time of the last change, in milliseconds
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,320 @@
+package com.s23010526.hiddensrilanka;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.animation.DecelerateInterpolator;
+
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ClusterMarkerRenderer - Draws {@link MarkerClusterEngine} output on a GoogleMap
+ *
+ * The caller passes the attractions in and around the visible region each time
+ * the camera settles; clustering them runs on a background thread and only the
+ * latest request's result is drawn. Cluster cells are fixed per zoom level, so
+ * panning keeps the keys of clusters that stay in view and they keep their
+ * Marker instead of being removed and re-added.
+ *
+ * When the zoom level changes, split children fly out from the cluster they
+ * left and merged markers fly into the cluster that absorbed them. Animation is
+ * skipped when too many markers would move at once, keeping frame time bounded.
+ *
+ * Each marker's tag is its {@link MarkerClusterEngine.Cluster}.
+ */
+public class ClusterMarkerRenderer {
+
+    private static final String TAG = "ClusterMarkerRenderer";
+
+    private static final long ANIMATION_DURATION_MS = 300;
+    private static final int MAX_ANIMATED_MARKERS = 150;
+    private static final int CLUSTER_ICON_SIZE_DP = 44;
+
+    // Counts at or above each threshold share one "N+" icon, bounding the icon cache
+    private static final int[] COUNT_BUCKETS = {1000, 500, 200, 100, 50, 20, 10};
+
+    /**
+     * Builds the marker for a single, unclustered attraction
+     */
+    public interface AttractionMarkerFactory {
+        MarkerOptions createMarkerOptions(Attraction attraction);
+    }
+
+    private final Context context;
+    private final GoogleMap map;
+    private final AttractionMarkerFactory markerFactory;
+    private final MarkerClusterEngine engine = new MarkerClusterEngine();
+    private final ExecutorService clusterExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Map<String, Marker> renderedMarkers = new HashMap<>();
+    private final Map<String, BitmapDescriptor> clusterIcons = new HashMap<>();
+    private final List<ValueAnimator> runningAnimations = new ArrayList<>();
+
+    private int renderedZoom = -1;
+    private int requestGeneration = 0;
+    private boolean released = false;
+
+    public ClusterMarkerRenderer(Context context, GoogleMap map, AttractionMarkerFactory markerFactory) {
+        this.context = context.getApplicationContext();
+        this.map = map;
+        this.markerFactory = markerFactory;
+    }
+
+    /**
+     * Cluster and draw the given attractions at the current zoom
+     * Splits and merges animate when the zoom level differs from the last render.
+     *
+     * @param attractions The attractions around the visible region
+     */
+    public void setAttractions(List<Attraction> attractions) {
+        requestClusters(new ArrayList<>(attractions), currentZoom());
+    }
+
+    /**
+     * Remove every marker this renderer drew
+     */
+    public void clear() {
+        requestGeneration++;
+        finishAnimations();
+        for (Marker marker : renderedMarkers.values()) {
+            marker.remove();
+        }
+        renderedMarkers.clear();
+        renderedZoom = -1;
+    }
+
+    /**
+     * Stop background work and drop all markers and cached icons
+     */
+    public void release() {
+        released = true;
+        clear();
+        clusterIcons.clear();
+        clusterExecutor.shutdownNow();
+    }
+
+    public static MarkerClusterEngine.Cluster getCluster(Marker marker) {
+        Object tag = marker.getTag();
+        return tag instanceof MarkerClusterEngine.Cluster ? (MarkerClusterEngine.Cluster) tag : null;
+    }
+
+    private int currentZoom() {
+        return (int) Math.floor(map.getCameraPosition().zoom);
+    }
+
+    private void requestClusters(List<Attraction> snapshot, int zoom) {
+        if (released) return;
+        final int generation = ++requestGeneration;
+
+        clusterExecutor.execute(() -> {
+            long start = System.currentTimeMillis();
+            List<MarkerClusterEngine.Cluster> clusters = engine.cluster(snapshot, zoom);
+            Log.d(TAG, "Clustered " + snapshot.size() + " attractions into " + clusters.size()
+                    + " markers at zoom " + zoom + " in " + (System.currentTimeMillis() - start) + " ms");
+
+            mainHandler.post(() -> {
+                if (released || generation != requestGeneration) return; // Superseded
+                render(clusters, zoom, renderedZoom >= 0);
+            });
+        });
+    }
+
+    private void render(List<MarkerClusterEngine.Cluster> clusters, int zoom, boolean animate) {
+        finishAnimations();
+        boolean zoomingIn = zoom > renderedZoom;
+
+        // Which cluster each attraction belonged to before and after this pass
+        Map<String, MarkerClusterEngine.Cluster> previousByItem = new HashMap<>();
+        for (Marker marker : renderedMarkers.values()) {
+            MarkerClusterEngine.Cluster cluster = getCluster(marker);
+            if (cluster == null) continue;
+            for (Attraction item : cluster.getItems()) {
+                previousByItem.put(item.getDocumentId(), cluster);
+            }
+        }
+        Map<String, MarkerClusterEngine.Cluster> nextByItem = new HashMap<>();
+        for (MarkerClusterEngine.Cluster cluster : clusters) {
+            for (Attraction item : cluster.getItems()) {
+                nextByItem.put(item.getDocumentId(), cluster);
+            }
+        }
+
+        int movingMarkers = 0;
+        for (MarkerClusterEngine.Cluster cluster : clusters) {
+            if (!renderedMarkers.containsKey(cluster.getKey())) movingMarkers++;
+        }
+        animate = animate && movingMarkers <= MAX_ANIMATED_MARKERS && zoom != renderedZoom;
+
+        Map<String, Marker> stale = new HashMap<>(renderedMarkers);
+        renderedMarkers.clear();
+
+        for (MarkerClusterEngine.Cluster cluster : clusters) {
+            LatLng target = new LatLng(cluster.getLatitude(), cluster.getLongitude());
+            Marker marker = stale.remove(cluster.getKey());
+
+            if (marker != null) {
+                // Same key: update in place in case membership changed with the data
+                MarkerClusterEngine.Cluster previous = getCluster(marker);
+                if (cluster.isCluster() && (previous == null || previous.getSize() != cluster.getSize())) {
+                    marker.setIcon(clusterIcon(cluster.getSize()));
+                    marker.setTitle(clusterTitle(cluster.getSize()));
+                }
+                marker.setPosition(target);
+                marker.setTag(cluster);
+                renderedMarkers.put(cluster.getKey(), marker);
+                continue;
+            }
+
+            // A split child starts where its parent cluster was drawn
+            LatLng start = target;
+            MarkerClusterEngine.Cluster parent = previousByItem.get(cluster.getItems().get(0).getDocumentId());
+            if (animate && zoomingIn && parent != null && parent.isCluster()) {
+                start = new LatLng(parent.getLatitude(), parent.getLongitude());
+            }
+
+            marker = map.addMarker(optionsFor(cluster).position(start));
+            if (marker == null) continue;
+            marker.setTag(cluster);
+            renderedMarkers.put(cluster.getKey(), marker);
+
+            if (animate && !zoomingIn && cluster.isCluster()) {
+                marker.setAlpha(0f);
+                animateMarker(marker, start, target, 0f, 1f, false);
+            } else if (!start.equals(target)) {
+                animateMarker(marker, start, target, 1f, 1f, false);
+            }
+        }
+
+        // Markers that no longer exist: merged ones fly into their new cluster
+        for (Marker marker : stale.values()) {
+            MarkerClusterEngine.Cluster old = getCluster(marker);
+            MarkerClusterEngine.Cluster absorbedBy = old != null
+                    ? nextByItem.get(old.getItems().get(0).getDocumentId()) : null;
+            if (animate && !zoomingIn && absorbedBy != null && absorbedBy.isCluster()) {
+                LatLng target = new LatLng(absorbedBy.getLatitude(), absorbedBy.getLongitude());
+                animateMarker(marker, marker.getPosition(), target, 1f, 0f, true);
+            } else {
+                marker.remove();
+            }
+        }
+
+        renderedZoom = zoom;
+    }
+
+    private MarkerOptions optionsFor(MarkerClusterEngine.Cluster cluster) {
+        if (!cluster.isCluster()) {
+            return markerFactory.createMarkerOptions(cluster.getItems().get(0));
+        }
+        return new MarkerOptions()
+                .title(clusterTitle(cluster.getSize()))
+                .icon(clusterIcon(cluster.getSize()))
+                .anchor(0.5f, 0.5f);
+    }
+
+    private String clusterTitle(int size) {
+        return size + " attractions";
+    }
+
+    private void animateMarker(Marker marker, LatLng from, LatLng to, float fromAlpha, float toAlpha,
+                               boolean removeAtEnd) {
+        ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+        animator.setDuration(ANIMATION_DURATION_MS);
+        animator.setInterpolator(new DecelerateInterpolator());
+        animator.addUpdateListener(animation -> {
+            float fraction = animation.getAnimatedFraction();
+            marker.setPosition(new LatLng(
+                    from.latitude + (to.latitude - from.latitude) * fraction,
+                    from.longitude + (to.longitude - from.longitude) * fraction));
+            marker.setAlpha(fromAlpha + (toAlpha - fromAlpha) * fraction);
+        });
+        animator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                runningAnimations.remove(animation);
+                if (removeAtEnd) {
+                    marker.remove();
+                } else {
+                    marker.setPosition(to);
+                    marker.setAlpha(toAlpha);
+                }
+            }
+        });
+        runningAnimations.add(animator);
+        animator.start();
+    }
+
+    /**
+     * Jump every running animation to its final state
+     */
+    private void finishAnimations() {
+        for (ValueAnimator animator : new ArrayList<>(runningAnimations)) {
+            animator.end();
+        }
+        runningAnimations.clear();
+    }
+
+    /**
+     * Circle icon with the cluster's (bucketed) count, cached per label
+     */
+    private BitmapDescriptor clusterIcon(int size) {
+        String label = String.valueOf(size);
+        for (int bucket : COUNT_BUCKETS) {
+            if (size >= bucket) {
+                label = bucket + "+";
+                break;
+            }
+        }
+
+        BitmapDescriptor icon = clusterIcons.get(label);
+        if (icon != null) {
+            return icon;
+        }
+
+        float density = context.getResources().getDisplayMetrics().density;
+        int sizePx = Math.round(CLUSTER_ICON_SIZE_DP * density);
+        Bitmap bitmap = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        float radius = sizePx / 2f;
+
+        Paint fill = new Paint(Paint.ANTI_ALIAS_FLAG);
+        fill.setColor(ContextCompat.getColor(context, R.color.white));
+        canvas.drawCircle(radius, radius, radius, fill);
+        fill.setColor(ContextCompat.getColor(context, R.color.NavyBlue));
+        canvas.drawCircle(radius, radius, radius - 3 * density, fill);
+
+        Paint text = new Paint(Paint.ANTI_ALIAS_FLAG);
+        text.setColor(ContextCompat.getColor(context, R.color.GoldYellow));
+        text.setTypeface(Typeface.DEFAULT_BOLD);
+        text.setTextAlign(Paint.Align.CENTER);
+        text.setTextSize((label.length() > 3 ? 11 : 14) * density);
+        float baseline = radius - (text.descent() + text.ascent()) / 2f;
+        canvas.drawText(label, radius, baseline, text);
+
+        icon = BitmapDescriptorFactory.fromBitmap(bitmap);
+        clusterIcons.put(label, icon);
+        return icon;
+    }
+}
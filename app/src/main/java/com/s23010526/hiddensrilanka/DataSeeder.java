@@ -1,7 +1,9 @@
 package com.s23010526.hiddensrilanka;
 
 import android.util.Log;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -40,6 +42,7 @@ public class DataSeeder {
         List<String> gangaramayaImages = new ArrayList<>();
         gangaramayaImages.add("https://example.com/gangaramaya.jpg");
         gangaramaya.put("images", gangaramayaImages);
+        putLocation(gangaramaya, 6.9166, 79.8563);
         colomboAttractions.add(gangaramaya);
 
         // Independence Square
@@ -53,15 +56,20 @@ public class DataSeeder {
         List<String> independenceImages = new ArrayList<>();
         independenceImages.add("https://example.com/independence.jpg");
         independence.put("images", independenceImages);
+        putLocation(independence, 6.9036, 79.8684);
         colomboAttractions.add(independence);
 
         // Save to Firestore
         for (Map<String, Object> attraction : colomboAttractions) {
-            firestore.collection("cities")
+            DocumentReference document = firestore.collection("cities")
                     .document("Colombo")
-                    .collection("attractions")
-                    .add(attraction)
-                    .addOnSuccessListener(documentReference ->
+                    .collection(AttractionSummaries.FULL_COLLECTION)
+                    .document();
+            WriteBatch batch = firestore.batch();
+            AttractionSummaries.setWithSummary(batch, document, attraction);
+            CityManifest.recordAddition(batch, document, (String) attraction.get("category"));
+            batch.commit()
+                    .addOnSuccessListener(unused ->
                         Log.d(TAG, "Added Colombo attraction: " + attraction.get("name")))
                     .addOnFailureListener(e ->
                         Log.e(TAG, "Error adding Colombo attraction", e));
@@ -82,6 +90,7 @@ public class DataSeeder {
         List<String> toothImages = new ArrayList<>();
         toothImages.add("https://example.com/tooth-temple.jpg");
         tooth.put("images", toothImages);
+        putLocation(tooth, 7.2936, 80.6413);
         kandyAttractions.add(tooth);
 
         // Royal Botanical Gardens
@@ -95,15 +104,20 @@ public class DataSeeder {
         List<String> botanicalImages = new ArrayList<>();
         botanicalImages.add("https://example.com/botanical-gardens.jpg");
         botanical.put("images", botanicalImages);
+        putLocation(botanical, 7.2687, 80.5966);
         kandyAttractions.add(botanical);
 
         // Save to Firestore
         for (Map<String, Object> attraction : kandyAttractions) {
-            firestore.collection("cities")
+            DocumentReference document = firestore.collection("cities")
                     .document("Kandy")
-                    .collection("attractions")
-                    .add(attraction)
-                    .addOnSuccessListener(documentReference ->
+                    .collection(AttractionSummaries.FULL_COLLECTION)
+                    .document();
+            WriteBatch batch = firestore.batch();
+            AttractionSummaries.setWithSummary(batch, document, attraction);
+            CityManifest.recordAddition(batch, document, (String) attraction.get("category"));
+            batch.commit()
+                    .addOnSuccessListener(unused ->
                         Log.d(TAG, "Added Kandy attraction: " + attraction.get("name")))
                     .addOnFailureListener(e ->
                         Log.e(TAG, "Error adding Kandy attraction", e));
@@ -124,6 +138,7 @@ public class DataSeeder {
         List<String> fortImages = new ArrayList<>();
         fortImages.add("https://example.com/galle-fort.jpg");
         fort.put("images", fortImages);
+        putLocation(fort, 6.026, 80.217);
         galleAttractions.add(fort);
 
         // Unawatuna Beach
@@ -137,18 +152,30 @@ public class DataSeeder {
         List<String> unawatunaImages = new ArrayList<>();
         unawatunaImages.add("https://example.com/unawatuna.jpg");
         unawatuna.put("images", unawatunaImages);
+        putLocation(unawatuna, 6.0097, 80.2497);
         galleAttractions.add(unawatuna);
 
         // Save to Firestore
         for (Map<String, Object> attraction : galleAttractions) {
-            firestore.collection("cities")
+            DocumentReference document = firestore.collection("cities")
                     .document("Galle")
-                    .collection("attractions")
-                    .add(attraction)
-                    .addOnSuccessListener(documentReference ->
+                    .collection(AttractionSummaries.FULL_COLLECTION)
+                    .document();
+            WriteBatch batch = firestore.batch();
+            AttractionSummaries.setWithSummary(batch, document, attraction);
+            CityManifest.recordAddition(batch, document, (String) attraction.get("category"));
+            batch.commit()
+                    .addOnSuccessListener(unused ->
                         Log.d(TAG, "Added Galle attraction: " + attraction.get("name")))
                     .addOnFailureListener(e ->
                         Log.e(TAG, "Error adding Galle attraction", e));
         }
     }
+
+    // Coordinates plus geohash so seeded attractions show up in nearby queries
+    private void putLocation(Map<String, Object> attraction, double latitude, double longitude) {
+        attraction.put("latitude", latitude);
+        attraction.put("longitude", longitude);
+        attraction.put("geohash", GeoHash.encode(latitude, longitude));
+    }
 }
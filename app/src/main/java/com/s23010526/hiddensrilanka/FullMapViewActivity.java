@@ -1,12 +1,16 @@
 package com.s23010526.hiddensrilanka;
 
 import android.Manifest;
+import android.annotation.SuppressLint;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.location.Location;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
+import android.text.TextUtils;
 import android.text.TextWatcher;
 import android.util.Log;
 import android.view.View;
@@ -22,26 +26,32 @@ import androidx.core.content.ContextCompat;
 
 import com.bumptech.glide.Glide;
 import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
-import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
 import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 import com.google.android.material.bottomsheet.BottomSheetBehavior;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.progressindicator.CircularProgressIndicator;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * FullMapViewActivity - Google Maps implementation for exploring Sri Lankan attractions
@@ -67,6 +77,21 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
     private static final LatLng DEFAULT_LOCATION = new LatLng(6.9271, 79.8612);
     private static final float DEFAULT_ZOOM = 8f;
     private static final float DETAILED_ZOOM = 15f;
+    private static final int CLUSTER_BOUNDS_PADDING_PX = 120;
+    // Markers are drawn for the visible region plus this fraction of its size on every side
+    private static final double VIEWPORT_MARGIN_FRACTION = 0.5;
+
+    // "Nearest to you" panel: k-nearest query against the filtered spatial index, redone
+    // only when the user has moved this far or the filtered set changed
+    private static final int NEAREST_COUNT = 5;
+    private static final float APPROXIMATE_MARKER_ALPHA = 0.6f;
+    private static final float NEAREST_REFRESH_DISTANCE_M = 50f;
+    private static final long LOCATION_UPDATE_INTERVAL_MS = 10_000;
+
+    // Search runs once typing pauses for this long, on a background thread
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+    // How often (in attractions) a running search checks whether it was superseded
+    private static final int SEARCH_CANCEL_CHECK_INTERVAL = 512;
 
     // UI Components
     private GoogleMap mMap;
@@ -81,18 +106,67 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
     private ImageView attractionImage, navigateButton;
     private TextView attractionName, attractionCategory, attractionDistance;
 
+    // Nearest panel components
+    private View nearestCard;
+    private LinearLayout nearestList;
+    private Location nearestQueryLocation;
+    private AttractionSpatialIndex nearestQueryIndex;
+
     // Data and functionality
     private FusedLocationProviderClient fusedLocationClient;
-    private FirebaseFirestore firestore;
+    private final AttractionRepository attractionRepository = AttractionRepository.getInstance();
+    // Receives every attraction in the app, live, for as long as this screen is visible
+    private final AttractionRepository.Subscriber repositorySubscriber = new AttractionRepository.Subscriber() {
+        @Override
+        public void onAttractionsChanged(List<Attraction> attractions) {
+            hideLoadingIndicator();
+            if (attractions == deliveredAttractions) {
+                return; // The replay on returning to the screen; nothing changed while stopped
+            }
+            Log.d(TAG, "Repository delivered " + attractions.size() + " attractions");
+            deliveredAttractions = attractions;
+            setAttractions(attractions);
+        }
+
+        @Override
+        public void onLoadFailed(Exception exception) {
+            Log.w(TAG, "Error getting attractions", exception);
+            Toast.makeText(FullMapViewActivity.this, "Failed to load attractions", Toast.LENGTH_SHORT).show();
+            hideLoadingIndicator();
+        }
+    };
+    private List<Attraction> deliveredAttractions; // Last list the repository published to this screen
+    // Replaced as a whole by setAttractions, never mutated, so searches can read them off the main thread
     private List<Attraction> allAttractions;
+    private Map<String, Attraction> allAttractionsById;
     private List<Attraction> filteredAttractions;
-    private Map<Marker, Attraction> markerAttractionMap;
+    private AttractionSpatialIndex filteredIndex;
+    private MapMarkerRegistry markerRegistry;
+    private CategoryMarkerIcons markerIcons;
+    private ClusterMarkerRenderer clusterRenderer;
     private Location currentLocation;
+    private final LocationCallback locationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@NonNull LocationResult result) {
+            Location location = result.getLastLocation();
+            if (location != null) {
+                onLocationChanged(location);
+            }
+        }
+    };
     private int currentMapType = GoogleMap.MAP_TYPE_NORMAL;
     private boolean clusteringEnabled = true;
     private String currentSearchQuery = "";
     private Attraction selectedAttraction;
 
+    // Search pipeline: debounced on the main thread, matched on searchExecutor
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor();
+    private final Runnable debouncedSearch = this::filterAndDisplayAttractions;
+    private final AttractionSearchIndex searchIndex = AttractionSearchIndex.getInstance();
+    private Future<?> searchTask;
+    private volatile int searchGeneration = 0;
+
     @Override
     protected int getLayoutResourceId() {
         return R.layout.activity_full_map_view;
@@ -111,21 +185,32 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
         setupMapFragment();
         setupUIListeners();
         requestLocationPermission();
-        loadAttractionsFromFirestore();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        loadAttractions();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        attractionRepository.unsubscribe(repositorySubscriber);
     }
 
     /**
      * Initialize all UI components and services
      */
     private void initializeComponents() {
-        // Initialize Firebase and location services
-        firestore = FirebaseFirestore.getInstance();
+        // Initialize location services
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
 
         // Initialize data structures
-        allAttractions = new ArrayList<>();
+        allAttractions = Collections.emptyList();
+        allAttractionsById = Collections.emptyMap();
         filteredAttractions = new ArrayList<>();
-        markerAttractionMap = new HashMap<>();
+        filteredIndex = new AttractionSpatialIndex(filteredAttractions);
 
         // Initialize UI components
         loadingIndicator = findViewById(R.id.loadingIndicator);
@@ -143,6 +228,12 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
         attractionDistance = findViewById(R.id.attractionDistance);
         navigateButton = findViewById(R.id.navigateButton);
 
+        // Nearest panel - the title collapses and expands the list
+        nearestCard = findViewById(R.id.nearestCard);
+        nearestList = findViewById(R.id.nearestList);
+        findViewById(R.id.nearestTitle).setOnClickListener(v ->
+                nearestList.setVisibility(nearestList.getVisibility() == View.VISIBLE ? View.GONE : View.VISIBLE));
+
         // Setup bottom sheet behavior
         bottomSheetBehavior = BottomSheetBehavior.from(bottomSheet);
         bottomSheetBehavior.setState(BottomSheetBehavior.STATE_HIDDEN);
@@ -171,7 +262,9 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 currentSearchQuery = s.toString().trim();
-                filterAndDisplayAttractions();
+                // Restart the debounce window; only the last keystroke's query runs
+                mainHandler.removeCallbacks(debouncedSearch);
+                mainHandler.postDelayed(debouncedSearch, SEARCH_DEBOUNCE_MS);
             }
 
             @Override
@@ -205,6 +298,12 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
         mMap.setOnMarkerClickListener(this);
         mMap.setOnMapClickListener(latLng -> hideBottomSheet());
 
+        // Markers follow the viewport - redrawn for the new region once the camera settles
+        markerIcons = CategoryMarkerIcons.getInstance(this);
+        clusterRenderer = new ClusterMarkerRenderer(this, mMap, this::createAttractionMarkerOptions);
+        markerRegistry = new MapMarkerRegistry(mMap, this::createAttractionMarkerOptions);
+        mMap.setOnCameraIdleListener(this::displayAttractionsOnMap);
+
         // Move camera to Sri Lanka
         mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(DEFAULT_LOCATION, DEFAULT_ZOOM));
 
@@ -229,37 +328,38 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
     }
 
     /**
-     * Load attractions from Firestore database
+     * Load attractions from the shared repository
+     *
+     * The repository listens to the same cities/{city} attractions the rest of
+     * the app writes and keeps its data for a short grace period after the map
+     * closes, so reopening the map draws immediately without a second download.
+     * Called from onStart and paired with the unsubscribe in onStop, so the
+     * listener does not keep running behind other apps or screens.
      */
-    private void loadAttractionsFromFirestore() {
-        showLoadingIndicator();
-
-        firestore.collection("attractions")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful() && task.getResult() != null) {
-                        allAttractions.clear();
-
-                        for (QueryDocumentSnapshot document : task.getResult()) {
-                            try {
-                                Attraction attraction = document.toObject(Attraction.class);
-                                if (attraction != null && isValidAttraction(attraction)) {
-                                    allAttractions.add(attraction);
-                                }
-                            } catch (Exception e) {
-                                Log.w(TAG, "Error parsing attraction: " + e.getMessage());
-                            }
-                        }
-
-                        Log.d(TAG, "Loaded " + allAttractions.size() + " attractions from Firestore");
-                        filterAndDisplayAttractions();
+    private void loadAttractions() {
+        if (deliveredAttractions == null) { // Nothing received yet
+            showLoadingIndicator();
+        }
+        attractionRepository.subscribe(repositorySubscriber);
+    }
 
-                    } else {
-                        Log.w(TAG, "Error getting attractions", task.getException());
-                        Toast.makeText(this, "Failed to load attractions", Toast.LENGTH_SHORT).show();
-                    }
-                    hideLoadingIndicator();
-                });
+    /**
+     * Replace the loaded attractions and refresh the markers
+     * The repository has already indexed them for search and spatial queries;
+     * the id lookup searches use is built here, once per data change.
+     */
+    private void setAttractions(List<Attraction> attractions) {
+        List<Attraction> valid = new ArrayList<>(attractions.size());
+        Map<String, Attraction> byId = new HashMap<>();
+        for (Attraction attraction : attractions) {
+            if (isValidAttraction(attraction)) {
+                valid.add(attraction);
+                byId.put(attraction.getDocumentId(), attraction);
+            }
+        }
+        allAttractions = Collections.unmodifiableList(valid);
+        allAttractionsById = Collections.unmodifiableMap(byId);
+        filterAndDisplayAttractions();
     }
 
     /**
@@ -273,91 +373,148 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
 
     /**
      * Filter attractions based on search query and display on map
+     *
+     * Matching runs on searchExecutor against the shared {@link AttractionSearchIndex},
+     * keeping only attractions this map has loaded, in ranked order. Starting a new
+     * search supersedes the previous one: it is cancelled if still queued, stops at
+     * its next check if running, and its result is never posted.
      */
     private void filterAndDisplayAttractions() {
-        filteredAttractions.clear();
+        mainHandler.removeCallbacks(debouncedSearch);
+
+        final int generation = ++searchGeneration;
+        if (searchTask != null) {
+            searchTask.cancel(false);
+        }
 
+        // Both are immutable snapshots, so nothing is copied on the main thread
         if (currentSearchQuery.isEmpty()) {
-            filteredAttractions.addAll(allAttractions);
-        } else {
-            String query = currentSearchQuery.toLowerCase();
-            for (Attraction attraction : allAttractions) {
-                if (matchesSearchQuery(attraction, query)) {
-                    filteredAttractions.add(attraction);
+            final List<Attraction> everything = allAttractions;
+            searchTask = searchExecutor.submit(() -> publishFilteredAttractions(everything, generation));
+            return;
+        }
+
+        final String query = currentSearchQuery;
+        final Map<String, Attraction> loaded = allAttractionsById;
+
+        searchTask = searchExecutor.submit(() -> {
+            if (generation != searchGeneration) {
+                return; // Superseded by a newer query
+            }
+            List<Attraction> ranked = searchIndex.search(query, Integer.MAX_VALUE);
+
+            List<Attraction> matches = new ArrayList<>();
+            for (int i = 0; i < ranked.size(); i++) {
+                if (i % SEARCH_CANCEL_CHECK_INTERVAL == 0 && generation != searchGeneration) {
+                    return;
+                }
+                // The index is shared with Home, which may know attractions this map does not
+                Attraction attraction = loaded.get(ranked.get(i).getDocumentId());
+                if (attraction != null) {
+                    matches.add(attraction);
                 }
             }
-        }
 
-        displayAttractionsOnMap();
-        Log.d(TAG, "Filtered to " + filteredAttractions.size() + " attractions");
+            publishFilteredAttractions(matches, generation);
+        });
     }
 
     /**
-     * Check if attraction matches search query
+     * Index a filter result for viewport queries and hand it to the main thread
+     * Runs on searchExecutor.
      */
-    private boolean matchesSearchQuery(Attraction attraction, String query) {
-        return attraction.getName().toLowerCase().contains(query) ||
-               (attraction.getCategory() != null && attraction.getCategory().toLowerCase().contains(query)) ||
-               (attraction.getCity() != null && attraction.getCity().toLowerCase().contains(query)) ||
-               (attraction.getDescription() != null && attraction.getDescription().toLowerCase().contains(query));
+    private void publishFilteredAttractions(List<Attraction> matches, int generation) {
+        AttractionSpatialIndex index = new AttractionSpatialIndex(matches);
+        mainHandler.post(() -> {
+            if (generation != searchGeneration || isFinishing() || isDestroyed()) return;
+            filteredAttractions = matches;
+            filteredIndex = index;
+            displayAttractionsOnMap();
+            updateNearestPanel();
+            Log.d(TAG, "Filtered to " + filteredAttractions.size() + " attractions");
+        });
     }
 
     /**
-     * Display filtered attractions as markers on the map
+     * Display the filtered attractions around the visible region as markers
+     * Called whenever the filter changes and whenever the camera settles, so the
+     * number of live markers follows the viewport rather than the dataset. With
+     * clustering enabled the cluster renderer owns the markers; otherwise the
+     * marker registry diffs the set against the markers on the map, recycling
+     * the ones that scrolled away.
      */
     private void displayAttractionsOnMap() {
         if (mMap == null) return;
 
-        // Clear existing markers
-        mMap.clear();
-        markerAttractionMap.clear();
+        List<Attraction> nearViewport = attractionsNearViewport();
 
-        // Add markers for filtered attractions
-        for (Attraction attraction : filteredAttractions) {
-            addAttractionMarker(attraction);
+        if (clusteringEnabled) {
+            markerRegistry.hideAll();
+            clusterRenderer.setAttractions(nearViewport);
+            return;
         }
 
-        Log.d(TAG, "Displayed " + filteredAttractions.size() + " markers on map");
+        clusterRenderer.clear();
+        markerRegistry.sync(nearViewport);
+
+        Log.d(TAG, "Displayed " + markerRegistry.getVisibleCount() + " of "
+                + filteredAttractions.size() + " markers on map");
     }
 
     /**
-     * Add a marker for an attraction on the map
+     * Filtered attractions inside the visible region grown by VIEWPORT_MARGIN_FRACTION
      */
-    private void addAttractionMarker(Attraction attraction) {
-        LatLng position = new LatLng(attraction.getLatitude(), attraction.getLongitude());
-
-        MarkerOptions markerOptions = new MarkerOptions()
-                .position(position)
-                .title(attraction.getName())
-                .snippet(attraction.getCategory())
-                .icon(BitmapDescriptorFactory.defaultMarker(getMarkerColor(attraction.getCategory())));
-
-        Marker marker = mMap.addMarker(markerOptions);
-        if (marker != null) {
-            markerAttractionMap.put(marker, attraction);
+    private List<Attraction> attractionsNearViewport() {
+        LatLngBounds visible = mMap.getProjection().getVisibleRegion().latLngBounds;
+        double latitudeMargin = (visible.northeast.latitude - visible.southwest.latitude) * VIEWPORT_MARGIN_FRACTION;
+        double longitudeSpan = visible.northeast.longitude - visible.southwest.longitude;
+        if (longitudeSpan < 0) {
+            // The view crosses the 180th meridian - far from Sri Lanka, so just take everything
+            return filteredAttractions;
         }
+        double longitudeMargin = longitudeSpan * VIEWPORT_MARGIN_FRACTION;
+
+        return filteredIndex.query(
+                visible.southwest.latitude - latitudeMargin, visible.southwest.longitude - longitudeMargin,
+                visible.northeast.latitude + latitudeMargin, visible.northeast.longitude + longitudeMargin);
     }
 
     /**
-     * Get marker color based on attraction category
+     * Marker options for a single attraction, shared with the cluster renderer
+     * Icons come from the shared per-category cache, never drawn per marker.
      */
-    private float getMarkerColor(String category) {
-        if (category == null) return BitmapDescriptorFactory.HUE_RED;
-
-        switch (category.toLowerCase()) {
-            case "temple": case "religious": return BitmapDescriptorFactory.HUE_ORANGE;
-            case "beach": case "coastal": return BitmapDescriptorFactory.HUE_AZURE;
-            case "mountain": case "hiking": return BitmapDescriptorFactory.HUE_GREEN;
-            case "waterfall": return BitmapDescriptorFactory.HUE_CYAN;
-            case "historical": case "archaeological": return BitmapDescriptorFactory.HUE_VIOLET;
-            case "wildlife": case "national park": return BitmapDescriptorFactory.HUE_YELLOW;
-            default: return BitmapDescriptorFactory.HUE_RED;
-        }
+    private MarkerOptions createAttractionMarkerOptions(Attraction attraction) {
+        LatLng position = new LatLng(attraction.getLatitude(), attraction.getLongitude());
+
+        // Estimated positions are faded and say so, rather than posing as exact pins
+        return new MarkerOptions()
+                .position(position)
+                .title(attraction.getName())
+                .snippet(attraction.isLocationApproximate()
+                        ? attraction.getCategory() + " • " + getString(R.string.location_approximate)
+                        : attraction.getCategory())
+                .icon(markerIcons.get(attraction.getCategory()))
+                .alpha(attraction.isLocationApproximate() ? APPROXIMATE_MARKER_ALPHA : 1f)
+                .anchor(0.5f, markerIcons.getAnchorV());
     }
 
     @Override
     public boolean onMarkerClick(@NonNull Marker marker) {
-        Attraction attraction = markerAttractionMap.get(marker);
+        Attraction attraction = MapMarkerRegistry.getAttraction(marker);
+
+        MarkerClusterEngine.Cluster cluster = ClusterMarkerRenderer.getCluster(marker);
+        if (cluster != null && cluster.isCluster()) {
+            // Zoom in until the cluster's members separate
+            LatLngBounds.Builder bounds = new LatLngBounds.Builder();
+            for (Attraction member : cluster.getItems()) {
+                bounds.include(new LatLng(member.getLatitude(), member.getLongitude()));
+            }
+            mMap.animateCamera(CameraUpdateFactory.newLatLngBounds(bounds.build(), CLUSTER_BOUNDS_PADDING_PX));
+            return true;
+        } else if (cluster != null) {
+            attraction = cluster.getItems().get(0);
+        }
+
         if (attraction != null) {
             selectedAttraction = attraction;
             showAttractionDetails(attraction);
@@ -395,7 +552,8 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
                     currentLocation.getLatitude(), currentLocation.getLongitude(),
                     attraction.getLatitude(), attraction.getLongitude()
             );
-            attractionDistance.setText(String.format(Locale.getDefault(), "%.1f km away", distance));
+            attractionDistance.setText(String.format(Locale.getDefault(), "%s%.1f km away",
+                    attraction.isLocationApproximate() ? "~" : "", distance));
         } else {
             attractionDistance.setText(getString(R.string.distance_unknown));
         }
@@ -437,6 +595,7 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
         intent.putExtra("attraction_description", attraction.getDescription());
         intent.putExtra("contributor_name", attraction.getContributorName());
         intent.putExtra("youtube_url", attraction.getYoutubeUrl());
+        intent.putExtra("attraction_document_path", AttractionSummaries.fullDocumentPath(attraction));
         intent.putExtra("attraction_latitude", attraction.getLatitude());
         intent.putExtra("attraction_longitude", attraction.getLongitude());
 
@@ -513,14 +672,96 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
             fusedLocationClient.getLastLocation()
                     .addOnSuccessListener(this, location -> {
                         if (location != null) {
-                            currentLocation = location;
                             Log.d(TAG, "Current location: " + location.getLatitude() + ", " + location.getLongitude());
+                            onLocationChanged(location);
                         }
                     })
                     .addOnFailureListener(e -> Log.w(TAG, "Failed to get location", e));
         }
     }
 
+    /**
+     * Follow the user's location while the map is in the foreground
+     */
+    @SuppressLint("MissingPermission")
+    private void startLocationUpdates() {
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_BALANCED_POWER_ACCURACY,
+                LOCATION_UPDATE_INTERVAL_MS)
+                .setMinUpdateDistanceMeters(NEAREST_REFRESH_DISTANCE_M)
+                .build();
+        fusedLocationClient.requestLocationUpdates(request, locationCallback, Looper.getMainLooper());
+    }
+
+    private void onLocationChanged(Location location) {
+        currentLocation = location;
+        updateNearestPanel();
+    }
+
+    /**
+     * Show the NEAREST_COUNT filtered attractions closest to the user, nearest first
+     *
+     * Answered by a k-nearest query on the filtered spatial index, so nothing is
+     * sorted. Small moves are ignored, and the existing rows are rebound in place
+     * rather than rebuilt.
+     */
+    private void updateNearestPanel() {
+        if (currentLocation == null || filteredIndex.size() == 0) {
+            nearestCard.setVisibility(View.GONE);
+            nearestQueryLocation = null;
+            return;
+        }
+        if (nearestQueryIndex == filteredIndex && nearestQueryLocation != null
+                && nearestQueryLocation.distanceTo(currentLocation) < NEAREST_REFRESH_DISTANCE_M) {
+            return; // Same attractions, barely moved - the ranking cannot have changed much
+        }
+        nearestQueryIndex = filteredIndex;
+        nearestQueryLocation = currentLocation;
+
+        List<Attraction> nearest = filteredIndex.nearest(
+                currentLocation.getLatitude(), currentLocation.getLongitude(), NEAREST_COUNT);
+        for (int i = 0; i < nearest.size(); i++) {
+            TextView row = i < nearestList.getChildCount()
+                    ? (TextView) nearestList.getChildAt(i) : addNearestRow();
+            bindNearestRow(row, nearest.get(i));
+        }
+        if (nearestList.getChildCount() > nearest.size()) {
+            nearestList.removeViews(nearest.size(), nearestList.getChildCount() - nearest.size());
+        }
+        nearestCard.setVisibility(View.VISIBLE);
+    }
+
+    private TextView addNearestRow() {
+        TextView row = new TextView(this);
+        row.setTextSize(13);
+        row.setTextColor(ContextCompat.getColor(this, R.color.NavyBlue));
+        row.setSingleLine(true);
+        row.setEllipsize(TextUtils.TruncateAt.END);
+        int padding = Math.round(6 * getResources().getDisplayMetrics().density);
+        row.setPadding(0, padding, 0, padding);
+        nearestList.addView(row);
+        return row;
+    }
+
+    private void bindNearestRow(TextView row, Attraction attraction) {
+        float distanceKm = calculateDistance(currentLocation.getLatitude(), currentLocation.getLongitude(),
+                attraction.getLatitude(), attraction.getLongitude());
+        String distance = distanceKm < 1
+                ? String.format(Locale.getDefault(), "%d m", Math.round(distanceKm * 1000))
+                : String.format(Locale.getDefault(), "%.1f km", distanceKm);
+        row.setText(attraction.getName() + "  •  " + (attraction.isLocationApproximate() ? "~" : "") + distance);
+        row.setOnClickListener(v -> {
+            // Jump to it and open its card, as if its marker had been tapped
+            mMap.animateCamera(CameraUpdateFactory.newLatLngZoom(
+                    new LatLng(attraction.getLatitude(), attraction.getLongitude()), DETAILED_ZOOM));
+            selectedAttraction = attraction;
+            showAttractionDetails(attraction);
+        });
+    }
+
     /**
      * Move camera to current location
      */
@@ -559,15 +800,14 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
     }
 
     /**
-     * Toggle marker clustering (placeholder for future implementation)
+     * Toggle marker clustering and redraw the markers in the new mode
      */
     private void toggleClustering() {
         clusteringEnabled = !clusteringEnabled;
         String message = clusteringEnabled ? "Clustering Enabled" : "Clustering Disabled";
         Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
 
-        // TODO: Implement marker clustering with ClusterManager
-        // This would group nearby markers when zoomed out for better performance
+        displayAttractionsOnMap();
     }
 
     /**
@@ -605,6 +845,7 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
             if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
                 enableMyLocationIfPermitted();
                 getCurrentLocation();
+                startLocationUpdates();
             } else {
                 Toast.makeText(this, "Location permission denied", Toast.LENGTH_SHORT).show();
             }
@@ -616,14 +857,27 @@ public class FullMapViewActivity extends BaseActivity implements OnMapReadyCallb
         super.onResume();
         // Refresh location when returning to activity
         getCurrentLocation();
+        startLocationUpdates();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        fusedLocationClient.removeLocationUpdates(locationCallback);
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
         // Clean up resources
-        if (markerAttractionMap != null) {
-            markerAttractionMap.clear();
+        if (markerRegistry != null) {
+            markerRegistry.clear();
+        }
+        mainHandler.removeCallbacks(debouncedSearch);
+        searchGeneration++;
+        searchExecutor.shutdownNow();
+        if (clusterRenderer != null) {
+            clusterRenderer.release();
         }
     }
 }
@@ -0,0 +1,160 @@
+package com.s23010526.hiddensrilanka;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * GeoHash - Base32 geohash encoding and radius query bounds
+ *
+ * A geohash interleaves longitude and latitude bits into a string whose prefixes
+ * name ever smaller rectangular cells, so "everything inside a cell" becomes a
+ * lexicographic range over a single indexed field. A radius search is answered
+ * with a handful of such ranges (the cells around the centre); callers then drop
+ * the false positives in the cell corners with an exact distance check.
+ *
+ * Attractions are written with a precision of {@link #STORAGE_PRECISION} so any
+ * coarser query prefix still matches them.
+ */
+public final class GeoHash {
+
+    public static final int STORAGE_PRECISION = 10;
+    private static final int MAX_QUERY_PRECISION = 9;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    // Sorts after every base32 character, closing each prefix range
+    private static final String RANGE_END_SUFFIX = "~";
+
+    // The same sphere GeoUtils.distanceKm measures on, so query bounds and the
+    // exact distance filter never disagree at the edge of the circle
+    private static final double KM_PER_DEGREE_LATITUDE = GeoUtils.EARTH_RADIUS_KM * Math.PI / 180;
+
+    private GeoHash() {
+    }
+
+    /**
+     * Encode a coordinate as a geohash of the given length
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true; // Bits alternate, starting with longitude
+        int bit = 0;
+        int charIndex = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    charIndex = (charIndex << 1) | 1;
+                    minLng = mid;
+                } else {
+                    charIndex = charIndex << 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    charIndex = (charIndex << 1) | 1;
+                    minLat = mid;
+                } else {
+                    charIndex = charIndex << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(charIndex));
+                bit = 0;
+                charIndex = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    public static String encode(double latitude, double longitude) {
+        return encode(latitude, longitude, STORAGE_PRECISION);
+    }
+
+    /**
+     * Compute the geohash ranges that together cover a circle
+     *
+     * The precision is chosen so every cell is at least as tall and wide (in
+     * degrees) as the circle's half-extent. Sampling the circle's bounding box
+     * one cell apart, edges included, then touches every cell that overlaps it -
+     * the centre plus its eight neighbours, except for circles that reach a pole.
+     *
+     * @return Pairs of {startAt, endAt} values for orderBy("geohash") queries
+     */
+    public static List<String[]> queryBounds(double latitude, double longitude, double radiusKm) {
+        double latDelta = radiusKm / KM_PER_DEGREE_LATITUDE;
+        double lngDelta = longitudeHalfExtent(latitude, radiusKm);
+        int precision = precisionForExtent(latDelta, lngDelta);
+
+        int latBits = (5 * precision) / 2;
+        double cellHeight = 180.0 / (1L << latBits);
+        double cellWidth = 360.0 / (1L << (5 * precision - latBits));
+
+        Set<String> cells = new LinkedHashSet<>();
+        for (double lat : samples(latitude, latDelta, cellHeight)) {
+            for (double lng : samples(longitude, lngDelta, cellWidth)) {
+                cells.add(encode(Math.max(-90, Math.min(90, lat)), wrapLongitude(lng), precision));
+            }
+        }
+
+        List<String[]> bounds = new ArrayList<>(cells.size());
+        for (String cell : cells) {
+            bounds.add(new String[]{cell, cell + RANGE_END_SUFFIX});
+        }
+        return bounds;
+    }
+
+    // centre - delta to centre + delta, at most step apart, both ends included
+    private static List<Double> samples(double centre, double delta, double step) {
+        List<Double> samples = new ArrayList<>();
+        for (double value = centre - delta; value < centre + delta; value += step) {
+            samples.add(value);
+        }
+        samples.add(centre + delta);
+        return samples;
+    }
+
+    /**
+     * Longest geohash whose cells are at least latDelta tall and lngDelta wide, in degrees
+     */
+    static int precisionForExtent(double latDelta, double lngDelta) {
+        for (int precision = MAX_QUERY_PRECISION; precision > 1; precision--) {
+            int latBits = (5 * precision) / 2;
+            int lngBits = 5 * precision - latBits;
+            double cellHeight = 180.0 / (1L << latBits);
+            double cellWidth = 360.0 / (1L << lngBits);
+            if (cellHeight >= latDelta && cellWidth >= lngDelta) {
+                return precision;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Widest longitude offset, in degrees, of any point within radiusKm on the sphere
+     * The circle is widest slightly poleward of its centre, hence asin rather than
+     * a plain division by cos(latitude).
+     */
+    static double longitudeHalfExtent(double latitude, double radiusKm) {
+        double angularRadius = radiusKm / GeoUtils.EARTH_RADIUS_KM;
+        double sinExtent = Math.sin(angularRadius) / Math.cos(Math.toRadians(latitude));
+        if (angularRadius >= Math.PI / 2 || sinExtent >= 1) {
+            return 180; // Reaches a pole
+        }
+        return Math.toDegrees(Math.asin(sinExtent));
+    }
+
+    private static double wrapLongitude(double longitude) {
+        if (longitude > 180) return longitude - 360;
+        if (longitude < -180) return longitude + 360;
+        return longitude;
+    }
+}
@@ -0,0 +1,40 @@
+package com.s23010526.hiddensrilanka;
+
+/**
+ * GeoUtils - Small, dependency-free helpers for working with WGS84 coordinates
+ *
+ * Kept free of Android classes so the spatial code that builds on it can be
+ * exercised from plain JVM unit tests.
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    // Approximate bounding box of Sri Lanka including its coastal islands
+    public static final double SRI_LANKA_MIN_LAT = 5.9;
+    public static final double SRI_LANKA_MAX_LAT = 9.9;
+    public static final double SRI_LANKA_MIN_LNG = 79.5;
+    public static final double SRI_LANKA_MAX_LNG = 81.9;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Great-circle distance between two points using the haversine formula
+     *
+     * @return Distance in kilometres
+     */
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    public static boolean isInSriLanka(double lat, double lng) {
+        return lat >= SRI_LANKA_MIN_LAT && lat <= SRI_LANKA_MAX_LAT
+                && lng >= SRI_LANKA_MIN_LNG && lng <= SRI_LANKA_MAX_LNG;
+    }
+}
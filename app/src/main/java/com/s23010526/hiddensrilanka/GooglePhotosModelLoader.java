@@ -0,0 +1,145 @@
+package com.s23010526.hiddensrilanka;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.data.HttpUrlFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * GooglePhotosModelLoader - Lets Glide load Google Photos share links directly
+ *
+ * Registered ahead of Glide's own String loaders by {@link HiddenSriLankaGlideModule},
+ * it claims only links that {@link GooglePhotosUrlHelper#isGooglePhotosUrl} accepts;
+ * every other URL goes through Glide unchanged. Resolution happens inside the
+ * fetch, on Glide's source threads, so callers simply {@code Glide.with(..).load(shareLink)}
+ * and get Glide's behaviour for free:
+ * - clearing or reusing a target (a recycled ViewHolder) cancels the fetch,
+ *   so a stale image never lands in a reused row
+ * - the request's priority applies to the download
+ * - results are cached under the share link, so a cached image needs no resolution
+ *   at all, and requests with an identical Glide key (same link, size and
+ *   options) share one fetch
+ * Requests for the same link under different keys - a thumbnail and a full-size
+ * view - each run a fetcher, but {@link GooglePhotosUrlHelper#resolveBlocking}
+ * resolves the link only once while they overlap.
+ */
+public class GooglePhotosModelLoader implements ModelLoader<String, InputStream> {
+
+    private static final String TAG = "GooglePhotosLoader";
+    private static final int DOWNLOAD_TIMEOUT_MS = 15_000;
+
+    private final Context context;
+
+    GooglePhotosModelLoader(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull String shareUrl, int width, int height,
+                                               @NonNull Options options) {
+        return new LoadData<>(new ObjectKey(shareUrl), new ShareLinkFetcher(context, shareUrl));
+    }
+
+    @Override
+    public boolean handles(@NonNull String model) {
+        return GooglePhotosUrlHelper.isGooglePhotosUrl(model);
+    }
+
+    /**
+     * Resolves the share link, then streams the direct URL through Glide's HTTP fetcher
+     */
+    private static class ShareLinkFetcher implements DataFetcher<InputStream> {
+        private final Context context;
+        private final String shareUrl;
+        private volatile boolean cancelled;
+        private volatile HttpUrlFetcher download;
+
+        ShareLinkFetcher(Context context, String shareUrl) {
+            this.context = context;
+            this.shareUrl = shareUrl;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super InputStream> callback) {
+            String directUrl = GooglePhotosUrlHelper.resolveBlocking(context, shareUrl);
+            if (cancelled) {
+                return;
+            }
+            if (directUrl == null) {
+                Log.w(TAG, "Could not resolve " + shareUrl);
+                callback.onLoadFailed(new IOException("Could not resolve Google Photos link: " + shareUrl));
+                return;
+            }
+
+            download = new HttpUrlFetcher(new GlideUrl(directUrl), DOWNLOAD_TIMEOUT_MS);
+            if (cancelled) {
+                return;
+            }
+            download.loadData(priority, callback);
+        }
+
+        @Override
+        public void cleanup() {
+            HttpUrlFetcher current = download;
+            if (current != null) {
+                current.cleanup();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            HttpUrlFetcher current = download;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        @NonNull
+        @Override
+        public Class<InputStream> getDataClass() {
+            return InputStream.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.REMOTE;
+        }
+    }
+
+    /**
+     * Registered with {@code Registry.prepend(String.class, InputStream.class, ...)}
+     */
+    public static class Factory implements ModelLoaderFactory<String, InputStream> {
+        private final Context context;
+
+        public Factory(Context context) {
+            this.context = context.getApplicationContext();
+        }
+
+        @NonNull
+        @Override
+        public ModelLoader<String, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new GooglePhotosModelLoader(context);
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package com.s23010526.hiddensrilanka;
 
-import android.app.AlertDialog;
 import android.content.Context;
-import android.os.AsyncTask;
-import android.widget.EditText;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
 import android.widget.ImageView;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
@@ -21,100 +28,214 @@ import java.util.regex.Matcher;
  */
 public class GooglePhotosUrlHelper {
 
+    // Background work - resolving links for storage and refreshing cached entries
+    // close to expiry - runs on a small fixed pool instead of starting threads
+    private static final int RESOLVER_THREADS = 3;
+    private static final AtomicInteger resolverThreadCount = new AtomicInteger();
+    private static final ExecutorService resolverExecutor = Executors.newFixedThreadPool(RESOLVER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "photos-resolver-" + resolverThreadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Share URL -> its resolution in progress; every caller asking for the same link
+    // while it is being resolved waits on this one instead of opening another connection
+    private static final Map<String, CompletableFuture<String>> inFlight = new HashMap<>();
+
+    // A stalled host gives up instead of pinning a resolver thread
+    private static final int RESOLVE_CONNECT_TIMEOUT_MS = 10_000;
+    private static final int RESOLVE_READ_TIMEOUT_MS = 15_000;
+
+    // Reading an image's dimensions needs only its header
+    private static final int DIMENSION_CONNECT_TIMEOUT_MS = 10_000;
+    private static final int DIMENSION_READ_TIMEOUT_MS = 10_000;
+
     /**
-     * Shows a dialog to input Google Photos share URL
-     * Validates the URL and loads the image preview
+     * An image link as stored with an attraction
+     *
+     * url is what readers load: the direct image URL when the link could be
+     * resolved, otherwise the link as given. width and height are 0 when unknown.
      */
-    public static void showGooglePhotosUrlDialog(Context context, ImageUrlCallback callback) {
-        AlertDialog.Builder builder = new AlertDialog.Builder(context);
-        builder.setTitle("Add Google Photos Image");
-        builder.setMessage("How to add images:\n\n" +
-                "Method 1 - Google Photos Share Link:\n" +
-                "1. Open Google Photos app/website\n" +
-                "2. Select your image\n" +
-                "3. Tap Share → Copy link\n" +
-                "4. Paste the link below\n\n" +
-                "Method 2 - Direct Image URL:\n" +
-                "Use any direct image URL from the web\n\n" +
-                "Both types of links are supported!");
-
-        // Create input field
-        EditText urlInput = new EditText(context);
-        urlInput.setHint("Paste Google Photos link or direct image URL...");
-        urlInput.setPadding(50, 30, 50, 30);
-        builder.setView(urlInput);
+    public static final class StoredImage {
+        public final String originalUrl;
+        public final String url;
+        public final int width;
+        public final int height;
+
+        StoredImage(String originalUrl, String url, int width, int height) {
+            this.originalUrl = originalUrl;
+            this.url = url;
+            this.width = width;
+            this.height = height;
+        }
 
-        // Add buttons
-        builder.setPositiveButton("Add Image", (dialog, which) -> {
-            String url = urlInput.getText().toString().trim();
-            if (validateAnyImageUrl(url)) {
-                processImageUrl(context, url, callback);
-            } else {
-                // Just call callback with null instead of showing toast
-                callback.onImageUrlProcessed(null);
+        /**
+         * Firestore representation, one element of an attraction's imageSources
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("originalUrl", originalUrl);
+            map.put("url", url);
+            if (width > 0 && height > 0) {
+                map.put("width", width);
+                map.put("height", height);
             }
-        });
+            return map;
+        }
+    }
 
-        builder.setNegativeButton("Cancel", null);
-        builder.show();
+    /**
+     * Interface for {@link #resolveForStorage} results
+     */
+    public interface StoredImagesCallback {
+        void onImagesResolved(List<StoredImage> images);
     }
 
     /**
-     * Public method to process image URL - converts Google Photos share links if needed
-     * This method handles both Google Photos links and direct image URLs
+     * Resolve a share link on the calling thread - never call from the main thread
+     *
+     * Used by {@link GooglePhotosModelLoader} inside Glide's fetch. Cached
+     * results are returned straight away (refreshing them in the background when
+     * close to expiry); otherwise the link is resolved here and cached, or, when
+     * another thread is already resolving it, that resolution is waited for.
+     *
+     * @return The direct URL, or null when the link could not be resolved
      */
-    public static void processImageUrl(Context context, String imageUrl, ImageUrlCallback callback) {
-        // Validate input
-        if (imageUrl == null || imageUrl.trim().isEmpty()) {
-            android.util.Log.w("GooglePhotosHelper", "Empty or null image URL provided");
-            callback.onImageUrlProcessed(null);
-            return;
-        }
+    public static String resolveBlocking(Context context, String shareUrl) {
+        String url = resolveCached(ResolvedPhotoUrlCache.getInstance(context), shareUrl);
+        return url.equals(shareUrl) ? null : url;
+    }
 
-        final String finalImageUrl = imageUrl.trim(); // Create final copy for lambda
+    // Cache, then the shared resolution; returns the URL to load
+    private static String resolveCached(ResolvedPhotoUrlCache cache, String shareUrl) {
+        ResolvedPhotoUrlCache.Entry cached = cache.get(shareUrl);
+        if (cached == null) {
+            return resolveShared(cache, shareUrl, false);
+        }
+        if (cached.needsRefresh(System.currentTimeMillis())) {
+            refreshInBackground(cache, shareUrl);
+        }
+        return cached.urlFor(shareUrl);
+    }
 
-        // Check if it's a Google Photos URL that needs processing
-        if (!isGooglePhotosUrl(finalImageUrl)) {
-            // Direct image URL - return as is
-            callback.onImageUrlProcessed(finalImageUrl);
-            return;
+    /**
+     * Resolve a share link over the network, at most once at a time per link
+     *
+     * The first caller resolves on its own thread; callers arriving while it
+     * runs block until it finishes and get the same result.
+     *
+     * @param refresh Re-resolve even if the cache already holds the link
+     */
+    private static String resolveShared(ResolvedPhotoUrlCache cache, String shareUrl, boolean refresh) {
+        CompletableFuture<String> resolution;
+        boolean owner = false;
+        synchronized (inFlight) {
+            resolution = inFlight.get(shareUrl);
+            if (resolution == null) {
+                resolution = new CompletableFuture<>();
+                inFlight.put(shareUrl, resolution);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            return resolution.join();
         }
 
-        // Process Google Photos URL in background thread
-        new Thread(() -> {
-            try {
-                String processedUrl = extractDirectImageUrl(finalImageUrl);
+        String url = shareUrl; // Fall back to the original URL if anything below throws
+        try {
+            // A resolution that finished between our cache miss and the claim above
+            ResolvedPhotoUrlCache.Entry cached = refresh ? null : cache.get(shareUrl);
+            url = cached != null ? cached.urlFor(shareUrl) : resolveAndCache(cache, shareUrl);
+            return url;
+        } finally {
+            synchronized (inFlight) {
+                inFlight.remove(shareUrl);
+            }
+            resolution.complete(url);
+        }
+    }
 
-                // Update UI on main thread
-                new android.os.Handler(android.os.Looper.getMainLooper()).post(() -> {
-                    callback.onImageUrlProcessed(processedUrl);
-                });
+    // Re-resolve an entry close to expiry while the cached URL keeps being served
+    private static void refreshInBackground(ResolvedPhotoUrlCache cache, String shareUrl) {
+        synchronized (inFlight) {
+            if (inFlight.containsKey(shareUrl)) {
+                return; // Already being resolved
+            }
+        }
+        resolverExecutor.execute(() -> resolveShared(cache, shareUrl, true));
+    }
 
-            } catch (Exception e) {
-                android.util.Log.e("GooglePhotosHelper", "Error processing URL: " + e.getMessage());
+    // Network resolution, cached either way; returns the URL to load
+    private static String resolveAndCache(ResolvedPhotoUrlCache cache, String shareUrl) {
+        String directUrl = null;
+        try {
+            directUrl = extractDirectImageUrl(shareUrl);
+        } catch (Exception e) {
+            android.util.Log.e("GooglePhotosHelper", "Error processing URL: " + e.getMessage());
+        }
+        cache.put(shareUrl, directUrl);
+        return directUrl != null ? directUrl : shareUrl; // Fall back to original URL
+    }
 
-                // Fall back to original URL on main thread
-                new android.os.Handler(android.os.Looper.getMainLooper()).post(() -> {
-                    callback.onImageUrlProcessed(finalImageUrl);
-                });
+    /**
+     * Resolve a contributor's image links once, before they are written
+     *
+     * Share links are resolved to direct URLs (through the same cache and
+     * in-flight resolutions as {@link #resolveBlocking}) and every image's
+     * dimensions are read from its header, so readers can load the stored URL
+     * without a resolver hop. Links that cannot be resolved are kept as given. The callback runs on the main
+     * thread with one entry per link, in order.
+     */
+    public static void resolveForStorage(Context context, List<String> imageUrls, StoredImagesCallback callback) {
+        final ResolvedPhotoUrlCache cache = ResolvedPhotoUrlCache.getInstance(context);
+        final List<String> urls = new ArrayList<>(imageUrls);
+        resolverExecutor.execute(() -> {
+            List<StoredImage> stored = new ArrayList<>();
+            for (String originalUrl : urls) {
+                String url = originalUrl.trim();
+                if (isGooglePhotosUrl(url)) {
+                    url = resolveCached(cache, url);
+                }
+                int[] size = readImageSize(url);
+                stored.add(new StoredImage(originalUrl, url, size[0], size[1]));
             }
-        }).start();
+            android.util.Log.d("GooglePhotosHelper", "Resolved " + stored.size() + " image links for storage");
+            mainHandler.post(() -> callback.onImagesResolved(stored));
+        });
     }
 
     /**
-     * Interface for URL processing callback
+     * Width and height from the image header, {0, 0} when it cannot be read
      */
-    public interface ImageUrlCallback {
-        void onImageUrlProcessed(String imageUrl);
-
-        // For backward compatibility with existing code
-        default void onUrlSelected(String imageUrl) {
-            onImageUrlProcessed(imageUrl);
+    private static int[] readImageSize(String imageUrl) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(imageUrl).openConnection();
+            connection.setConnectTimeout(DIMENSION_CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(DIMENSION_READ_TIMEOUT_MS);
+            try (InputStream input = connection.getInputStream()) {
+                BitmapFactory.Options options = new BitmapFactory.Options();
+                options.inJustDecodeBounds = true;
+                BitmapFactory.decodeStream(input, null, options);
+                if (options.outWidth > 0 && options.outHeight > 0) {
+                    return new int[]{options.outWidth, options.outHeight};
+                }
+            }
+        } catch (Exception e) {
+            android.util.Log.w("GooglePhotosHelper", "Could not read image size: " + e.getMessage());
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
         }
+        return new int[]{0, 0};
     }
 
     /**
      * Check if URL is a Google Photos URL that needs processing
+     * The one place share links are recognised; Glide loads them through
+     * {@link GooglePhotosModelLoader}.
      */
     public static boolean isGooglePhotosUrl(String url) {
         return url != null && (
@@ -127,136 +248,42 @@ public class GooglePhotosUrlHelper {
 
     /**
      * Extract direct image URL from Google Photos share link
+     *
+     * One connection does both steps: redirects are followed, and if they do not
+     * end on the image itself the same response body is scanned for it (see
+     * {@link PhotoPageScanner}). Connect and read timeouts bound a stalled host, the
+     * scanner's byte budget bounds a large page, and the connection is always
+     * released.
+     *
+     * @return The direct URL, or null when it could not be found
      */
     private static String extractDirectImageUrl(String shareUrl) {
+        HttpURLConnection connection = null;
         try {
-            // Method 1: Try to follow redirects
-            String finalUrl = followRedirects(shareUrl);
-            if (finalUrl != null && finalUrl.contains("googleusercontent.com")) {
+            connection = (HttpURLConnection) new URL(shareUrl).openConnection();
+            connection.setInstanceFollowRedirects(true);
+            connection.setConnectTimeout(RESOLVE_CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(RESOLVE_READ_TIMEOUT_MS);
+            connection.setRequestProperty("User-Agent", "Mozilla/5.0");
+
+            InputStream page = connection.getInputStream();
+            String finalUrl = connection.getURL().toString();
+            if (finalUrl.contains("googleusercontent.com")) {
+                page.close();
                 return finalUrl;
             }
-
-            // Method 2: Try HTML extraction
-            String htmlUrl = extractImageFromHtml(shareUrl);
-            if (htmlUrl != null && !htmlUrl.isEmpty()) {
-                return htmlUrl;
+            try {
+                return PhotoPageScanner.findImageUrl(page, PhotoPageScanner.DEFAULT_BYTE_BUDGET);
+            } finally {
+                page.close();
             }
 
-            // Fallback: return original URL
-            return shareUrl;
-
         } catch (Exception e) {
             android.util.Log.e("GooglePhotosHelper", "Error extracting URL: " + e.getMessage());
-            return shareUrl;
-        }
-    }
-
-    /**
-     * Checks if URL is a Google Photos share link
-     */
-    private static boolean isGooglePhotosShareLink(String url) {
-        return url != null && (
-            url.contains("photos.app.goo.gl") ||
-            url.contains("photos.google.com/share") ||
-            url.contains("photos.google.com/u/") ||
-            url.contains("photos.google.com/album")
-        );
-    }
-
-    /**
-     * Validates if the URL could be any type of image URL
-     */
-    private static boolean validateAnyImageUrl(String url) {
-        if (url == null || url.isEmpty()) {
-            return false;
-        }
-
-        String lowerUrl = url.toLowerCase();
-        
-        // Accept Google Photos links
-        if (isGooglePhotosShareLink(url)) {
-            return true;
-        }
-
-        // Accept direct image URLs
-        if (lowerUrl.matches(".*\\.(jpg|jpeg|png|gif|bmp|webp)(\\?.*)?$")) {
-            return true;
-        }
-        
-        // Accept Google user content URLs
-        if (lowerUrl.contains("googleusercontent.com")) {
-            return true;
-        }
-        
-        // Accept common image hosting services
-        if (lowerUrl.contains("imgur.com") ||
-            lowerUrl.contains("flickr.com") ||
-            lowerUrl.contains("unsplash.com") ||
-            lowerUrl.contains("pexels.com") ||
-            lowerUrl.contains("cloudinary.com") ||
-            lowerUrl.contains("amazonaws.com")) {
-            return true;
-        }
-
-        // For other URLs, basic validation
-        return lowerUrl.startsWith("http") && !lowerUrl.contains("javascript:");
-    }
-
-    /**
-     * AsyncTask to extract direct image URL from Google Photos share link
-     */
-    private static class ExtractImageUrlTask extends AsyncTask<String, Void, String> {
-        private Context context;
-        private ImageUrlCallback callback;
-        private String originalUrl; // Store original URL for fallback
-
-        public ExtractImageUrlTask(Context context, ImageUrlCallback callback) {
-            this.context = context;
-            this.callback = callback;
-        }
-
-        @Override
-        protected String doInBackground(String... urls) {
-            try {
-                String shareUrl = urls[0];
-                originalUrl = shareUrl; // Store for potential use in onPostExecute
-
-                // For Google Photos share links, the best approach is often to use the original URL
-                // as many image loading libraries can handle the redirects properly
-
-                // Method 1: Try to follow redirects to get the actual URL
-                String finalUrl = followRedirects(shareUrl);
-                if (finalUrl != null && !finalUrl.equals(shareUrl)) {
-                    // If we got a different URL, it might be the direct image URL
-                    if (finalUrl.contains("googleusercontent.com") || finalUrl.contains("ggpht.com")) {
-                        return finalUrl;
-                    }
-                }
-
-                // Method 2: Try to extract from HTML content
-                String htmlExtractedUrl = extractImageFromHtml(shareUrl);
-                if (htmlExtractedUrl != null && !htmlExtractedUrl.isEmpty()) {
-                    return htmlExtractedUrl;
-                }
-
-                // Method 3: Fallback - return original URL as many modern image loaders can handle redirects
-                // Google Photos share links often work directly in image loading libraries
-                return shareUrl;
-
-            } catch (Exception e) {
-                e.printStackTrace();
-                // Return original URL as fallback
-                return originalUrl != null ? originalUrl : urls[0];
-            }
-        }
-
-        @Override
-        protected void onPostExecute(String result) {
-            if (result != null && !result.isEmpty()) {
-                callback.onUrlSelected(result);
-            } else {
-                // Fallback - use original URL
-                callback.onUrlSelected(originalUrl);
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
             }
         }
     }
@@ -286,58 +313,6 @@ public class GooglePhotosUrlHelper {
         return null;
     }
 
-    /**
-     * Follow redirects to get final URL
-     */
-    private static String followRedirects(String urlString) {
-        try {
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setInstanceFollowRedirects(true);
-            connection.setRequestMethod("GET");
-            connection.connect();
-
-            return connection.getURL().toString();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-
-    /**
-     * Try to extract image URL from HTML content
-     */
-    private static String extractImageFromHtml(String urlString) {
-        try {
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0");
-
-            BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-            StringBuilder html = new StringBuilder();
-            String line;
-
-            while ((line = reader.readLine()) != null) {
-                html.append(line);
-
-                // Look for image URLs in the HTML
-                if (line.contains("googleusercontent.com")) {
-                    Pattern pattern = Pattern.compile("https://lh[0-9]\\.googleusercontent\\.com/[^\"'\\s]+");
-                    Matcher matcher = pattern.matcher(line);
-                    if (matcher.find()) {
-                        return matcher.group(0);
-                    }
-                }
-            }
-            reader.close();
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
     /**
      * Load image from URL using Glide with error handling
      */
@@ -0,0 +1,33 @@
+package com.s23010526.hiddensrilanka;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.module.AppGlideModule;
+
+import java.io.InputStream;
+
+/**
+ * HiddenSriLankaGlideModule - App-wide Glide configuration
+ *
+ * Adds {@link GooglePhotosModelLoader} in front of Glide's String loaders, so
+ * any Glide request in the app can be given a Google Photos share link.
+ */
+@GlideModule
+public class HiddenSriLankaGlideModule extends AppGlideModule {
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.prepend(String.class, InputStream.class, new GooglePhotosModelLoader.Factory(context));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        // No library modules are declared in manifests
+        return false;
+    }
+}
@@ -25,12 +25,15 @@ import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HomeActivity extends BaseActivity {
 
@@ -45,13 +48,54 @@ public class HomeActivity extends BaseActivity {
     private ChipGroup chipGroup;
 
     private FirebaseFirestore firestoreDb;
+    private AttractionCache attractionCache;
     private FusedLocationProviderClient fusedLocationProviderClient;
     private String currentCity = null;
 
+    // Paging state - one pager at a time drives the list, for a city or island-wide
+    private static final int PAGE_SIZE = 20;
+    private static final int PREFETCH_DISTANCE = 5;
+    private AttractionPager activePager;
+    private final List<Attraction> networkAttractions = new ArrayList<>(); // Rows confirmed by loaded pages
+    private List<Attraction> cachedAttractions = new ArrayList<>();        // Rows served from disk
+    private String lastLoadedName = null;   // Last name covered by loaded pages
+    private boolean hasMorePages = true;
+    private boolean isShowingAllAttractions = false;
+    private String currentCategory = "All";
+    private int networkRowsEnd = 0;         // Adapter position just past the last paged row
+
+    // The city's rows are loaded unfiltered once; chips filter them locally through this index
+    private static final long CITY_DATA_MAX_AGE_MS = 5 * 60 * 1000;
+    private final AttractionCategoryIndex categoryIndex = new AttractionCategoryIndex();
+    private final Set<String> cachedOnlyIds = new HashSet<>(); // Rows not yet confirmed by a page
+    private String loadedCity = null;
+    private long cityDataLoadedAt = 0;      // When the first fresh page for loadedCity arrived
+
+    // Attractions within a radius of the last GPS fix, from any city, shown above the city list
+    private static final double NEARBY_RADIUS_KM = 15.0;
+    private AttractionGeoQuery geoQuery;
+    private List<Attraction> nearbyAttractions = new ArrayList<>();
+    private String nearbyCity = null;       // City resolved from the fix the nearby results belong to
+
+    // Every attraction this screen loads is added to the index shared with the map search
+    private static final int MAX_SEARCH_RESULTS = 50;
+    private final AttractionSearchIndex searchIndex = AttractionSearchIndex.getInstance();
+
+    // Request sequencing - every async result carries the generation it was started
+    // for and is dropped if a newer request has superseded it in the meantime
+    private int loadGeneration = 0;         // Bumped whenever the list is pointed at a new query
+    private int locationGeneration = 0;     // Bumped per location request and by manual city search
+    private int nearbyGeneration = 0;
+    private String inFlightRequestKey = null; // "city|category" of the load awaiting its first page
+
     // Add flag to prevent multiple location requests
     private boolean isLocationRequestInProgress = false;
     private boolean hasInitialLocationLoad = false;
 
+    // Fixes farther than this from every gazetteer town are double-checked with the Geocoder
+    private static final double GEOCODER_REFINE_DISTANCE_KM = 10.0;
+    private final ExecutorService geocoderExecutor = Executors.newSingleThreadExecutor();
+
     @Override
     protected int getLayoutResourceId() {
         return R.layout.activity_home;
@@ -68,7 +112,11 @@ public class HomeActivity extends BaseActivity {
 
         //Initialize everything
         firestoreDb = FirebaseFirestore.getInstance();
+        attractionCache = AttractionCache.getInstance(this);
+        geoQuery = new AttractionGeoQuery(firestoreDb);
         fusedLocationProviderClient = LocationServices.getFusedLocationProviderClient(this);
+        // Parse the offline gazetteer while the first location fix is on its way
+        SriLankaGazetteer.load(this, gazetteer -> { });
 
         progressBar = findViewById(R.id.progressBar);
         chipGroup = findViewById(R.id.chip_group_filters);
@@ -76,8 +124,10 @@ public class HomeActivity extends BaseActivity {
 
         attractionList = new ArrayList<>();
         adapter = new AttractionAdapter(attractionList);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
+        setupPaging(recyclerView, layoutManager);
 
         checkLocationPermission();
         setupFilterListener();
@@ -92,10 +142,7 @@ public class HomeActivity extends BaseActivity {
             String searchQuery = searchField.getText().toString().trim();
 
             if (!searchQuery.isEmpty()) {
-                // Manual city override - search for attractions in specified city
-                currentCity = searchQuery;
-                Toast.makeText(this, "🔍 Searching attractions in: " + searchQuery, Toast.LENGTH_SHORT).show();
-                loadAttractionsFromFirestore(searchQuery, "All");
+                performSearch(searchQuery);
 
                 // Clear search field and hide keyboard
                 searchField.setText("");
@@ -111,6 +158,57 @@ public class HomeActivity extends BaseActivity {
         });
     }
 
+    /**
+     * Search from the toolbar - a known town loads that city, anything else is
+     * answered from the attraction search index, and a query nothing matches is
+     * still tried as a city name
+     */
+    @Override
+    protected void performSearch(String searchQuery) {
+        SriLankaGazetteer.load(this, gazetteer -> {
+            if (isFinishing() || isDestroyed()) return;
+
+            SriLankaGazetteer.Town town = gazetteer.findByName(searchQuery);
+            if (town != null) {
+                searchCity(town.getName());
+                return;
+            }
+
+            List<Attraction> matches = searchIndex.search(searchQuery, MAX_SEARCH_RESULTS);
+            if (!matches.isEmpty()) {
+                showSearchResults(searchQuery, matches);
+            } else {
+                searchCity(searchQuery);
+            }
+        });
+    }
+
+    // Manual city override - search for attractions in specified city
+    private void searchCity(String city) {
+        locationGeneration++; // A fix still on its way must not replace the typed city
+        currentCity = city;
+        Toast.makeText(this, "🔍 Searching attractions in: " + city, Toast.LENGTH_SHORT).show();
+        loadAttractionsFromFirestore(city, "All");
+    }
+
+    // Show ranked index matches in place of the current list
+    private void showSearchResults(String searchQuery, List<Attraction> matches) {
+        locationGeneration++;
+        resetPaging();
+        isShowingAllAttractions = false;
+        loadedCity = null;
+        hasMorePages = false;
+        progressBar.setVisibility(View.GONE);
+
+        attractionList.clear();
+        attractionList.addAll(matches);
+        networkRowsEnd = attractionList.size();
+        refreshAdapter();
+
+        Log.d(TAG, matches.size() + " indexed attractions match '" + searchQuery + "'");
+        Toast.makeText(this, "🔍 " + matches.size() + " matches for \"" + searchQuery + "\"", Toast.LENGTH_SHORT).show();
+    }
+
     // Method to refresh location and attractions
     private void refreshLocation() {
         if (isLocationRequestInProgress) {
@@ -121,8 +219,9 @@ public class HomeActivity extends BaseActivity {
 
         // Clear current data
         currentCity = null;
+        resetPaging();
         attractionList.clear();
-        notifyDataSetChanged();
+        refreshAdapter();
         hasInitialLocationLoad = false; // Reset flag for manual refresh
 
         // Get fresh location
@@ -133,10 +232,10 @@ public class HomeActivity extends BaseActivity {
         }
     }
 
-    // Helper method to update adapter efficiently
-    private void notifyDataSetChanged() {
+    // Helper method to update adapter efficiently - the adapter diffs against what it shows
+    private void refreshAdapter() {
         if (adapter != null) {
-            adapter.notifyDataSetChanged();
+            adapter.updateAttractions(attractionList);
         }
     }
 
@@ -152,6 +251,16 @@ public class HomeActivity extends BaseActivity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Drop every pending result - nothing should touch the views after this
+        resetPaging();
+        locationGeneration++;
+        nearbyGeneration++;
+        geocoderExecutor.shutdownNow();
+    }
+
     // Location Handling Methods
     private void checkLocationPermission() {
         if (isLocationRequestInProgress) {
@@ -190,6 +299,7 @@ public class HomeActivity extends BaseActivity {
         isLocationRequestInProgress = true;
         progressBar.setVisibility(View.VISIBLE);
         Log.d(TAG, "Starting location detection...");
+        final int requestGeneration = ++locationGeneration;
 
         // Clear any cached location first
         fusedLocationProviderClient.flushLocations();
@@ -198,53 +308,14 @@ public class HomeActivity extends BaseActivity {
                 .addOnSuccessListener(this, location -> {
                     isLocationRequestInProgress = false;
                     hasInitialLocationLoad = true;
+                    if (requestGeneration != locationGeneration) {
+                        Log.d(TAG, "Dropping location result - superseded by a newer request");
+                        return;
+                    }
 
                     if (location != null) {
                         Log.d(TAG, "Location found: " + location.getLatitude() + ", " + location.getLongitude());
-
-                        // Always try to geocode the coordinates to get city name
-                        Geocoder geocoder = new Geocoder(this, Locale.getDefault());
-                        try {
-                            List<Address> addresses = geocoder.getFromLocation(location.getLatitude(), location.getLongitude(), 1);
-                            if (addresses != null && !addresses.isEmpty()) {
-                                Address address = addresses.get(0);
-
-                                // Try multiple ways to get city name
-                                String city = address.getLocality();
-                                if (city == null) city = address.getSubAdminArea();
-                                if (city == null) city = address.getAdminArea();
-                                if (city == null) city = address.getSubLocality();
-
-                                Log.d(TAG, "Geocoded city: " + city);
-                                Log.d(TAG, "Full geocoded address: " + address);
-
-                                if (city != null) {
-                                    currentCity = normalizeCityName(city);
-
-                                    // Check if location is in Sri Lanka
-                                    if (isInSriLanka(location.getLatitude(), location.getLongitude())) {
-                                        Toast.makeText(this, "📍 Detected location: " + currentCity, Toast.LENGTH_SHORT).show();
-                                        // Load attractions for Sri Lankan city
-                                        loadAttractionsFromFirestore(currentCity, "All");
-                                    } else {
-                                        Toast.makeText(this, "🌍 Foreign location detected: " + currentCity +
-                                                     "\n🎯 Showing all Sri Lankan attractions", Toast.LENGTH_LONG).show();
-                                        // Show all attractions from all Sri Lankan cities
-                                        loadAllAttractionsFromFirestore("All");
-                                    }
-                                    return;
-                                } else {
-                                    Log.w(TAG, "Could not determine city name from geocoding");
-                                    showLocationFallbackOptions();
-                                }
-                            } else {
-                                Log.w(TAG, "No addresses found for location");
-                                showLocationFallbackOptions();
-                            }
-                        } catch (IOException e) {
-                            Log.e(TAG, "Geocoder error: " + e.getMessage());
-                            showLocationFallbackOptions();
-                        }
+                        resolveCityOffline(location.getLatitude(), location.getLongitude(), requestGeneration);
                     } else {
                         Log.w(TAG, "Location is null");
                         showLocationFallbackOptions();
@@ -254,10 +325,159 @@ public class HomeActivity extends BaseActivity {
                     isLocationRequestInProgress = false;
                     hasInitialLocationLoad = true;
                     Log.e(TAG, "Location error: " + e.getMessage());
+                    if (requestGeneration != locationGeneration) {
+                        return;
+                    }
                     showLocationFallbackOptions();
                 });
     }
 
+    /**
+     * Resolve a GPS fix to a city with the bundled gazetteer - no network, no main-thread I/O
+     *
+     * The nearest town centroid is used straight away. Only when the fix is far from
+     * every known town is the platform Geocoder consulted, on a background thread,
+     * to see whether it names a more specific city.
+     */
+    private void resolveCityOffline(double latitude, double longitude, int requestGeneration) {
+        if (!isInSriLanka(latitude, longitude)) {
+            Toast.makeText(this, "🌍 Foreign location detected" +
+                         "\n🎯 Showing all Sri Lankan attractions", Toast.LENGTH_LONG).show();
+            // Show all attractions from all Sri Lankan cities
+            loadAllAttractionsFromFirestore("All");
+            return;
+        }
+
+        SriLankaGazetteer.load(this, gazetteer -> {
+            if (isFinishing() || isDestroyed() || requestGeneration != locationGeneration) {
+                return;
+            }
+            SriLankaGazetteer.Town town = gazetteer.findNearest(latitude, longitude);
+            if (town == null) {
+                Log.w(TAG, "Gazetteer is empty, cannot resolve city offline");
+                showLocationFallbackOptions();
+                return;
+            }
+
+            double distanceKm = town.distanceKmTo(latitude, longitude);
+            Log.d(TAG, "Nearest town: " + town.getName() + " (" + String.format(Locale.US, "%.1f", distanceKm) + " km)");
+
+            currentCity = town.getName();
+            Toast.makeText(this, "📍 Detected location: " + currentCity, Toast.LENGTH_SHORT).show();
+            loadAttractionsFromFirestore(currentCity, "All");
+            loadNearbyAttractions(latitude, longitude, currentCity);
+
+            if (distanceKm > GEOCODER_REFINE_DISTANCE_KM) {
+                refineCityWithGeocoder(latitude, longitude, town.getName(), gazetteer, requestGeneration);
+            }
+        });
+    }
+
+    /**
+     * Ask the platform Geocoder for a better city name off the main thread
+     *
+     * The answer is only applied if it names a town we know about and the user is
+     * still looking at the city the gazetteer picked.
+     */
+    private void refineCityWithGeocoder(double latitude, double longitude, String offlineCity,
+                                        SriLankaGazetteer gazetteer, int requestGeneration) {
+        if (!Geocoder.isPresent()) {
+            return;
+        }
+        geocoderExecutor.execute(() -> {
+            String city = null;
+            try {
+                Geocoder geocoder = new Geocoder(this, Locale.getDefault());
+                List<Address> addresses = geocoder.getFromLocation(latitude, longitude, 1);
+                if (addresses != null && !addresses.isEmpty()) {
+                    Address address = addresses.get(0);
+                    // Try multiple ways to get city name
+                    city = address.getLocality();
+                    if (city == null) city = address.getSubAdminArea();
+                    if (city == null) city = address.getSubLocality();
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                Log.w(TAG, "Geocoder refinement failed: " + e.getMessage());
+            }
+
+            SriLankaGazetteer.Town refined = gazetteer.findByName(normalizeCityName(city));
+            if (refined == null || refined.getName().equals(offlineCity)) {
+                return;
+            }
+            runOnUiThread(() -> {
+                if (isFinishing() || isDestroyed() || isShowingAllAttractions
+                        || requestGeneration != locationGeneration || !offlineCity.equals(currentCity)) {
+                    return;
+                }
+                Log.d(TAG, "Geocoder refined " + offlineCity + " to " + refined.getName());
+                currentCity = refined.getName();
+                Toast.makeText(this, "📍 Detected location: " + currentCity, Toast.LENGTH_SHORT).show();
+                loadAttractionsFromFirestore(currentCity, "All");
+                loadNearbyAttractions(latitude, longitude, currentCity);
+            });
+        });
+    }
+
+    /**
+     * Make freshly loaded rows searchable by text and by location, and available to the map
+     */
+    private void indexLoadedAttractions(List<Attraction> attractions) {
+        searchIndex.addAll(attractions);
+        // Lets the map draw these straight away instead of waiting for its own download
+        AttractionRepository.getInstance().seed(attractions);
+        AttractionSpatialIndex spatialIndex = AttractionSpatialIndex.getShared();
+        for (Attraction attraction : attractions) {
+            if (attraction.hasLocation() && !attraction.isPlaceholder()) {
+                spatialIndex.insert(attraction);
+            }
+        }
+    }
+
+    /**
+     * Fetch attractions within NEARBY_RADIUS_KM of the fix with geohash range queries
+     *
+     * This catches places just across a town boundary that an exact city match
+     * misses. Results are already exact-filtered and sorted nearest first.
+     */
+    private void loadNearbyAttractions(double latitude, double longitude, String city) {
+        nearbyAttractions = new ArrayList<>();
+        nearbyCity = city;
+        final int requestGeneration = ++nearbyGeneration;
+
+        geoQuery.findNearby(latitude, longitude, NEARBY_RADIUS_KM, new AttractionGeoQuery.Callback() {
+            @Override
+            public void onPartialResult(List<Attraction> attractions) {
+                // Show each geohash range's cards as soon as it answers
+                showNearby(attractions, false);
+            }
+
+            @Override
+            public void onResult(List<Attraction> attractions) {
+                showNearby(attractions, true);
+            }
+
+            private void showNearby(List<Attraction> attractions, boolean complete) {
+                if (isFinishing() || isDestroyed() || requestGeneration != nearbyGeneration) {
+                    return; // A newer fix has replaced this one
+                }
+                Log.d(TAG, attractions.size() + " attractions within " + NEARBY_RADIUS_KM + " km of " + city
+                        + (complete ? "" : " so far"));
+                indexLoadedAttractions(attractions);
+                // Nearest first from everything indexed, so rows loaded by other pages count too
+                nearbyAttractions = AttractionSpatialIndex.getShared()
+                        .withinRadius(latitude, longitude, NEARBY_RADIUS_KM);
+                if (!isShowingAllAttractions && city.equals(currentCity)) {
+                    renderCityAttractions();
+                }
+            }
+
+            @Override
+            public void onError(Exception exception) {
+                Log.w(TAG, "Nearby attractions unavailable: " + exception);
+            }
+        });
+    }
+
     // New method to show fallback options when location detection fails
     private void showLocationFallbackOptions() {
         isLocationRequestInProgress = false;
@@ -282,7 +502,7 @@ public class HomeActivity extends BaseActivity {
 
         // Clear the attractions list and show message
         attractionList.clear();
-        adapter.notifyDataSetChanged();
+        refreshAdapter();
     }
 
     // New method to load default attractions when location fails
@@ -294,68 +514,356 @@ public class HomeActivity extends BaseActivity {
 
     // Improved Firestore loading with better error handling and fallback
     private void loadAttractionsFromFirestore(String cityName, String category) {
+        String requestKey = cityName.trim() + "|" + category;
+        if (requestKey.equals(inFlightRequestKey)) {
+            Log.d(TAG, "Identical request already in flight, not repeating: " + requestKey);
+            return;
+        }
+
         progressBar.setVisibility(View.VISIBLE);
+        resetPaging();
+        inFlightRequestKey = requestKey;
+        final int requestGeneration = loadGeneration;
+        isShowingAllAttractions = false;
+        currentCategory = category;
+        // Only the backing list is emptied: the adapter keeps drawing its own copy of
+        // the old cards until refreshAdapter submits the new result, and its differ then
+        // leaves rows shared by both results in place
         attractionList.clear();
 
         String formattedCityName = cityName.trim();
+        loadedCity = formattedCityName;
+        cityDataLoadedAt = 0;
         Log.d(TAG, "Querying for city: '" + formattedCityName + "' and category: '" + category + "'");
 
-        // Try exact city match first
-        tryLoadFromCity(formattedCityName, category, 0);
+        // Serve whatever is cached on disk first, then revalidate against Firestore.
+        // Every category is loaded so chip changes can be answered locally.
+        attractionCache.loadAsync(formattedCityName, AttractionCategoryIndex.ALL, (cached, changed) -> {
+            if (requestGeneration != loadGeneration) {
+                Log.d(TAG, "Dropping cached rows for " + formattedCityName + " - request superseded");
+                return;
+            }
+            cachedAttractions = cached;
+            indexLoadedAttractions(cached);
+            if (!cached.isEmpty()) {
+                Log.d(TAG, "Showing " + cached.size() + " cached attractions for " + formattedCityName);
+                renderCityAttractions();
+                progressBar.setVisibility(View.GONE);
+            }
+            checkManifestThenLoad(formattedCityName, cached, requestGeneration);
+        });
     }
 
-    private void tryLoadFromCity(String cityName, String category, int fallbackIndex) {
-        Query query = firestoreDb.collection("cities").document(cityName).collection("attractions");
+    /**
+     * Read the city's manifest (one document) and skip the subcollection read
+     * when the cache was fully synced against the same manifest
+     */
+    private void checkManifestThenLoad(String cityName, List<Attraction> cached, int requestGeneration) {
+        CityManifest.cityDocument(firestoreDb, cityName).get().addOnCompleteListener(task -> {
+            if (requestGeneration != loadGeneration) {
+                return;
+            }
+            CityManifest manifest = task.isSuccessful() && task.getResult() != null
+                    ? CityManifest.fromDocument(task.getResult()) : null;
+            updateCategoryChips(manifest);
+
+            if (manifest == null) {
+                if (task.isSuccessful()) {
+                    // An empty city, or one from before manifests: until the migration is
+                    // done its summaries may be missing, so read the full documents instead.
+                    // Repairs are left to the one client that claims them, see below.
+                    Log.d(TAG, "No manifest for " + cityName);
+                    SummaryMigration.ensure(firestoreDb, complete -> {
+                        if (requestGeneration == loadGeneration) {
+                            tryLoadFromCity(cityName, !cached.isEmpty(), requestGeneration, complete, null);
+                        }
+                    });
+                } else {
+                    tryLoadFromCity(cityName, !cached.isEmpty(), requestGeneration, true, null);
+                }
+                return;
+            }
 
-        // Only apply category filter if it's not "All"
-        if (!"All".equalsIgnoreCase(category)) {
-            query = query.whereEqualTo("category", category);
-        }
+            attractionCache.loadManifestStampAsync(cityName, stamp -> {
+                if (requestGeneration != loadGeneration) {
+                    return;
+                }
+                if (!cached.isEmpty() && stamp == manifest.getLastModified()
+                        && cached.size() == manifest.getAttractionCount()) {
+                    Log.d(TAG, "Manifest for " + cityName + " unchanged, using " + cached.size() + " cached attractions");
+                    useCachedCityAsComplete(cached);
+                    return;
+                }
+                tryLoadFromCity(cityName, !cached.isEmpty(), requestGeneration, true, manifest);
+            });
+        });
+    }
 
-        query.get().addOnCompleteListener(task -> {
-            if (task.isSuccessful()) {
-                Log.d(TAG, "Query successful for " + cityName + ". Found " + task.getResult().size() + " documents.");
+    /**
+     * Treat the cached rows as the full, fresh city - nothing left to page in
+     */
+    private void useCachedCityAsComplete(List<Attraction> cached) {
+        networkAttractions.clear();
+        networkAttractions.addAll(cached);
+        lastLoadedName = null;
+        hasMorePages = false;
+        inFlightRequestKey = null;
+        cityDataLoadedAt = System.currentTimeMillis();
+        progressBar.setVisibility(View.GONE);
+        renderCityAttractions();
+    }
 
-                if (!task.getResult().isEmpty()) {
-                    // Clear previous results and add new ones
-                    attractionList.clear();
+    /**
+     * Hide chips for categories the city has no attractions in; show every chip without a manifest
+     */
+    private void updateCategoryChips(CityManifest manifest) {
+        for (int i = 0; i < chipGroup.getChildCount(); i++) {
+            View child = chipGroup.getChildAt(i);
+            if (!(child instanceof Chip)) continue;
+            Chip chip = (Chip) child;
+            String category = chip.getText().toString();
+            boolean visible = manifest == null || chip.isChecked()
+                    || AttractionCategoryIndex.ALL.equalsIgnoreCase(category)
+                    || manifest.getCategoryCount(category) > 0;
+            chip.setVisibility(visible ? View.VISIBLE : View.GONE);
+        }
+    }
+
+    /**
+     * Page through the city's attractions, reading card-sized summaries or the full documents
+     *
+     * Summaries are checked against the manifest once the last page is in: fewer
+     * than it counts means some were never written, so the city is read again
+     * from the full documents. A city that has attractions but a missing or wrong
+     * manifest is handed to {@link SummaryMigration#repairCity}, which only one
+     * client runs; a city with no attractions is left alone, so searching for it
+     * writes nothing.
+     */
+    private void tryLoadFromCity(String cityName, boolean showingCachedResults, int requestGeneration,
+                                 boolean useSummaries, CityManifest manifest) {
+        Query query = firestoreDb.collection("cities").document(cityName)
+                .collection(useSummaries ? AttractionSummaries.SUMMARY_COLLECTION : AttractionSummaries.FULL_COLLECTION);
+        AttractionPager.DocumentConverter converter = useSummaries
+                ? AttractionSummaries::toAttraction : AttractionPager::toAttraction;
+
+        activePager = new AttractionPager(query.orderBy("name"), PAGE_SIZE, converter, new AttractionPager.Listener() {
+            @Override
+            public void onPageLoaded(List<Attraction> page, boolean isFirstPage, boolean hasMore) {
+                Log.d(TAG, "Page loaded for " + cityName + ": " + page.size() + " documents");
+
+                // This page covers names after the previous page, up to its own last name
+                String afterName = lastLoadedName;
+                String upToName = hasMore && !page.isEmpty() ? page.get(page.size() - 1).getName() : null;
+                networkAttractions.addAll(page);
+                indexLoadedAttractions(page);
+                lastLoadedName = upToName;
+                hasMorePages = hasMore;
+                if (isFirstPage) {
+                    cityDataLoadedAt = System.currentTimeMillis();
+                    inFlightRequestKey = null;
+                }
 
-                    // Found attractions for this city - show them
-                    for (QueryDocumentSnapshot document : task.getResult()) {
-                        Attraction attraction = document.toObject(Attraction.class);
-                        attraction.setDocumentId(document.getId());
-                        attractionList.add(attraction);
-                        Log.d(TAG, "Added attraction: " + attraction.getName());
+                // Write only the rows that changed, and only touch the UI if something did
+                attractionCache.applyPageAsync(cityName, AttractionCategoryIndex.ALL, afterName, upToName, page, (fresh, changed) -> {
+                    if (requestGeneration != loadGeneration) {
+                        return; // The user moved on while the cache was being updated
+                    }
+                    if (showingCachedResults && !changed) {
+                        Log.d(TAG, "Cached attractions for " + cityName + " are up to date");
+                        // Nothing to redraw, but a narrow category may still need more pages
+                        loadMoreForCategoryIfShort();
+                        return;
                     }
-                    adapter.notifyDataSetChanged();
+
+                    renderCityAttractions();
                     progressBar.setVisibility(View.GONE);
 
-                    String filterText = "All".equalsIgnoreCase(category) ? "all" : category;
-                    Toast.makeText(this, "Found " + attractionList.size() + " " + filterText + " attractions in " + cityName, Toast.LENGTH_SHORT).show();
-                } else {
-                    // No attractions found for this city - show community growth entry
-                    Log.d(TAG, "No attractions found for " + cityName + ", showing community growth entry");
-                    showPlaceholderEntry(cityName);
+                    if (isFirstPage && !showingCachedResults && !attractionList.isEmpty()
+                            && !attractionList.get(0).isPlaceholder()) {
+                        String filterText = "All".equalsIgnoreCase(currentCategory) ? "all" : currentCategory;
+                        Toast.makeText(HomeActivity.this, "Showing " + filterText + " attractions in " + cityName, Toast.LENGTH_SHORT).show();
+                    }
+                });
+                if (!hasMore && manifest == null && !networkAttractions.isEmpty()) {
+                    SummaryMigration.repairCity(firestoreDb, cityName);
+                } else if (!hasMore && manifest != null) {
+                    if (useSummaries && networkAttractions.size() < manifest.getAttractionCount()) {
+                        Log.w(TAG, "Only " + networkAttractions.size() + " of " + manifest.getAttractionCount()
+                                + " summaries for " + cityName + ", reading full documents");
+                        SummaryMigration.repairCity(firestoreDb, cityName);
+                        networkAttractions.clear();
+                        lastLoadedName = null;
+                        hasMorePages = true;
+                        tryLoadFromCity(cityName, true, requestGeneration, false, manifest);
+                    } else if (networkAttractions.size() != manifest.getAttractionCount()) {
+                        // The manifest is wrong (e.g. counted before older attractions were
+                        // summarized) - show every chip, have it recounted, and don't trust it for skipping
+                        Log.w(TAG, "Manifest for " + cityName + " counts " + manifest.getAttractionCount()
+                                + " attractions, loaded " + networkAttractions.size() + "; repairing it");
+                        updateCategoryChips(null);
+                        if (!networkAttractions.isEmpty()) {
+                            SummaryMigration.repairCity(firestoreDb, cityName);
+                        }
+                    } else {
+                        // Every page is now applied (same disk queue, so after this one): the cache
+                        // matches the manifest read before paging began
+                        attractionCache.saveManifestStampAsync(cityName, manifest.getLastModified());
+                    }
                 }
-            } else {
-                Exception exception = task.getException();
-                Log.e(TAG, "Error getting documents from " + cityName + ": ", exception);
+            }
+
+            @Override
+            public void onLoadingChanged(boolean waitingForPage) {
+                adapter.setLoadingFooterVisible(waitingForPage && !attractionList.isEmpty());
+            }
 
+            @Override
+            public void onPageError(Exception exception, boolean isFirstPage) {
+                Log.e(TAG, "Error getting documents from " + cityName + ": ", exception);
                 progressBar.setVisibility(View.GONE);
-                if (exception != null && exception.getMessage() != null && exception.getMessage().contains("PERMISSION_DENIED")) {
-                    Toast.makeText(this, "⚠️ Firebase Database Access Denied!\nPlease update Firebase Security Rules.", Toast.LENGTH_LONG).show();
+                if (isFirstPage) {
+                    inFlightRequestKey = null; // Allow an explicit retry
+                }
+
+                if (!isFirstPage) {
+                    Toast.makeText(HomeActivity.this, "Couldn't load more attractions. Scroll down to retry.", Toast.LENGTH_SHORT).show();
+                } else if (showingCachedResults) {
+                    // Cached cards are already on screen - keep them rather than showing an error
+                    Toast.makeText(HomeActivity.this, "📴 Showing saved attractions for " + cityName, Toast.LENGTH_SHORT).show();
+                } else if (exception != null && exception.getMessage() != null && exception.getMessage().contains("PERMISSION_DENIED")) {
+                    Toast.makeText(HomeActivity.this, "⚠️ Firebase Database Access Denied!\nPlease update Firebase Security Rules.", Toast.LENGTH_LONG).show();
                 } else {
-                    Toast.makeText(this, "Error loading data. Please check your internet connection.", Toast.LENGTH_LONG).show();
+                    Toast.makeText(HomeActivity.this, "Error loading data. Please check your internet connection.", Toast.LENGTH_LONG).show();
+                }
+            }
+        });
+        activePager.loadFirstPage();
+    }
+
+    /**
+     * Rebuild the city's row set from loaded pages plus cached rows the pages
+     * have not reached yet - those stay on screen until their page revalidates them -
+     * then re-index it by category and show the selected chip
+     */
+    private void renderCityAttractions() {
+        List<Attraction> cityRows = new ArrayList<>();
+        Set<String> shownIds = new HashSet<>();
+        cachedOnlyIds.clear();
+
+        // Nearest places first, whichever city they were filed under
+        if (currentCity != null && currentCity.equals(nearbyCity)) {
+            for (Attraction nearby : nearbyAttractions) {
+                if (shownIds.add(nearby.getDocumentId())) {
+                    cityRows.add(nearby);
+                }
+            }
+        }
+
+        for (Attraction loaded : networkAttractions) {
+            if (shownIds.add(loaded.getDocumentId())) {
+                cityRows.add(loaded);
+            }
+        }
+
+        if (hasMorePages) {
+            for (Attraction cached : cachedAttractions) {
+                if (shownIds.contains(cached.getDocumentId())) {
+                    continue; // Renamed since it was cached, or already shown as nearby
+                }
+                if (lastLoadedName == null || compareNames(cached, lastLoadedName) > 0) {
+                    cityRows.add(cached);
+                    cachedOnlyIds.add(cached.getDocumentId());
+                }
+            }
+        }
+
+        categoryIndex.rebuild(cityRows);
+        showCityCategory();
+    }
+
+    /**
+     * Show the selected category from the city index - no Firestore round trip
+     */
+    private void showCityCategory() {
+        attractionList.clear();
+        attractionList.addAll(categoryIndex.get(currentCategory));
+
+        // Cached-only rows always trail the confirmed ones
+        networkRowsEnd = 0;
+        while (networkRowsEnd < attractionList.size()
+                && !cachedOnlyIds.contains(attractionList.get(networkRowsEnd).getDocumentId())) {
+            networkRowsEnd++;
+        }
+
+        if (attractionList.isEmpty() && !hasMorePages && loadedCity != null) {
+            // No attractions found for this city - show community growth entry
+            Log.d(TAG, "No " + currentCategory + " attractions found for " + loadedCity + ", showing community growth entry");
+            showPlaceholderEntry(loadedCity);
+            return;
+        }
+
+        refreshAdapter();
+        loadMoreForCategoryIfShort();
+    }
+
+    // A narrow category may not fill the screen from the pages loaded so far, so keep paging
+    private void loadMoreForCategoryIfShort() {
+        if (activePager != null && hasMorePages && !"All".equalsIgnoreCase(currentCategory)
+                && networkRowsEnd < PAGE_SIZE) {
+            activePager.loadNextPage();
+        }
+    }
+
+    // Helper method to check whether the loaded city rows are too old to filter locally
+    private boolean isCityDataStale() {
+        return cityDataLoadedAt > 0 && System.currentTimeMillis() - cityDataLoadedAt > CITY_DATA_MAX_AGE_MS;
+    }
+
+    // Stop the current pager and forget everything it loaded
+    private void resetPaging() {
+        // Any callback still pending for the previous query is now stale
+        loadGeneration++;
+        inFlightRequestKey = null;
+        if (activePager != null) {
+            activePager.cancel();
+            activePager = null;
+        }
+        networkAttractions.clear();
+        cachedAttractions = new ArrayList<>();
+        lastLoadedName = null;
+        hasMorePages = true;
+        networkRowsEnd = 0;
+        categoryIndex.clear();
+        cachedOnlyIds.clear();
+        adapter.setLoadingFooterVisible(false);
+    }
+
+    // Ask the active pager for more once the user nears the end of the loaded pages
+    private void setupPaging(RecyclerView recyclerView, LinearLayoutManager layoutManager) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (activePager == null || dy <= 0) {
+                    return;
+                }
+                if (layoutManager.findLastVisibleItemPosition() >= networkRowsEnd - PREFETCH_DISTANCE) {
+                    activePager.loadNextPage();
                 }
             }
         });
     }
 
+    // Helper method to order names the same way Firestore and the cache do
+    private int compareNames(Attraction attraction, String name) {
+        String attractionName = attraction.getName() != null ? attraction.getName() : "";
+        return attractionName.compareTo(name);
+    }
+
     // Show message when no attractions found for the detected city
     private void showNoAttractionsMessage(String cityName) {
         progressBar.setVisibility(View.GONE);
         attractionList.clear();
-        adapter.notifyDataSetChanged();
+        refreshAdapter();
 
         Toast.makeText(this, "No attractions found in " + cityName + ". Be the first to add some!", Toast.LENGTH_LONG).show();
     }
@@ -363,7 +871,7 @@ public class HomeActivity extends BaseActivity {
     // Helper method to check if coordinates are in Sri Lanka
     private boolean isInSriLanka(double lat, double lng) {
         // Sri Lanka boundaries (approximate)
-        return lat >= 5.9 && lat <= 9.9 && lng >= 79.5 && lng <= 81.9;
+        return GeoUtils.isInSriLanka(lat, lng);
     }
 
     // Helper method to normalize city names for better Firebase matching
@@ -406,7 +914,17 @@ public class HomeActivity extends BaseActivity {
             Chip selectedChip = findViewById(checkedId);
             if (selectedChip != null) {
                 String selectedCategory = selectedChip.getText().toString();
+                if (isShowingAllAttractions) {
+                    loadAllAttractionsFromFirestore(selectedCategory);
+                    return;
+                }
                 String cityToQuery = currentCity != null ? currentCity : "Colombo";
+                if (cityToQuery.trim().equals(loadedCity) && !isCityDataStale()) {
+                    // The whole city is already in memory - just switch buckets
+                    currentCategory = selectedCategory;
+                    showCityCategory();
+                    return;
+                }
                 loadAttractionsFromFirestore(cityToQuery, selectedCategory);
             }
         });
@@ -444,7 +962,7 @@ public class HomeActivity extends BaseActivity {
         // Add to attraction list
         attractionList.clear();
         attractionList.add(placeholder);
-        adapter.notifyDataSetChanged();
+        refreshAdapter();
 
         Log.d(TAG, "Placeholder entry added for " + cityName);
         Toast.makeText(this, "No attractions found for " + cityName + ". Help us by adding some!", Toast.LENGTH_LONG).show();
@@ -455,69 +973,109 @@ public class HomeActivity extends BaseActivity {
     /**
      * New method to load all attractions from all Sri Lankan cities
      * This is used when location is detected outside Sri Lanka (like Mountain View)
+     *
+     * Uses a single collection-group query over every cities/{city}/attractions
+     * subcollection, ordered by name and paged with Firestore cursors, so any city
+     * a contributor has written to is included and page one renders immediately.
      */
     private void loadAllAttractionsFromFirestore(String category) {
+        String requestKey = "*|" + category;
+        if (requestKey.equals(inFlightRequestKey)) {
+            Log.d(TAG, "Identical request already in flight, not repeating: " + requestKey);
+            return;
+        }
+
         progressBar.setVisibility(View.VISIBLE);
+        resetPaging();
+        inFlightRequestKey = requestKey;
+        isShowingAllAttractions = true;
+        currentCategory = category;
+        loadedCity = null;
         attractionList.clear();
 
-        // List of major Sri Lankan cities to search
-        String[] sriLankanCities = {
-            "Colombo", "Kandy", "Galle", "Anuradhapura", "Nuwara Eliya",
-            "Matale", "Kurunegala", "Badulla", "Ratnapura", "Trincomalee",
-            "Batticaloa", "Jaffna", "Negombo", "Kalutara", "Gampaha",
-            "Hambantota", "Polonnaruwa", "Kegalle", "Puttalam", "Vavuniya",
-            "Kahawatta", "Bandarawela", "Ella", "Haputale", "Dambulla"
-        };
+        updateCategoryChips(null); // Island-wide, every category may have attractions
+        Log.d(TAG, "Loading all attractions across Sri Lanka for category: " + category);
+        final int requestGeneration = loadGeneration;
+        // Summaries cover every attraction only once the one-off migration is done
+        SummaryMigration.ensure(firestoreDb, complete -> {
+            if (requestGeneration == loadGeneration) {
+                loadIslandWidePages(category, complete);
+            }
+        });
+    }
 
-        Log.d(TAG, "Loading all attractions from multiple Sri Lankan cities for category: " + category);
+    /**
+     * Page through every city at once, reading summaries once {@link SummaryMigration}
+     * has completed and the full documents until then
+     *
+     * Categories are matched on the loaded pages through
+     * {@link AttractionCategories#canonical}, as the city path does, rather than
+     * with a Firestore equality filter: legacy spellings ("waterfall") then match
+     * their chip and "More" means every unknown spelling, not the literal string.
+     * Pages are read until a narrow category fills the screen.
+     */
+    private void loadIslandWidePages(String category, boolean useSummaries) {
+        Query query = firestoreDb.collectionGroup(useSummaries
+                ? AttractionSummaries.SUMMARY_COLLECTION : AttractionSummaries.FULL_COLLECTION);
+        final boolean allCategories = AttractionCategoryIndex.ALL.equalsIgnoreCase(category);
+        final String wantedCategory = AttractionCategories.canonical(category);
+        AttractionPager.DocumentConverter converter = useSummaries
+                ? AttractionSummaries::toAttraction : AttractionPager::toAttraction;
+
+        activePager = new AttractionPager(query.orderBy("name"), PAGE_SIZE, converter, new AttractionPager.Listener() {
+            @Override
+            public void onPageLoaded(List<Attraction> page, boolean isFirstPage, boolean hasMore) {
+                progressBar.setVisibility(View.GONE);
+                networkAttractions.addAll(page);
+                indexLoadedAttractions(page);
+                hasMorePages = hasMore;
+                if (isFirstPage) {
+                    inFlightRequestKey = null;
+                }
+                Log.d(TAG, "Loaded page of " + page.size() + " attractions across Sri Lanka");
 
-        // Counter to track completed queries
-        final int[] completedQueries = {0};
-        final int totalQueries = sriLankanCities.length;
+                List<Attraction> matching = new ArrayList<>();
+                for (Attraction attraction : page) {
+                    if (allCategories || wantedCategory.equals(AttractionCategories.canonical(attraction.getCategory()))) {
+                        matching.add(attraction);
+                    }
+                }
 
-        for (String city : sriLankanCities) {
-            Query query = firestoreDb.collection("cities").document(city).collection("attractions");
+                if (!hasMore && attractionList.isEmpty() && matching.isEmpty()) {
+                    // No attractions found anywhere - show general placeholder
+                    showGeneralPlaceholder();
+                    return;
+                }
 
-            // Only apply category filter if it's not "All"
-            if (!"All".equalsIgnoreCase(category)) {
-                query = query.whereEqualTo("category", category);
-            }
+                attractionList.addAll(matching);
+                networkRowsEnd = attractionList.size();
+                refreshAdapter();
+                loadMoreForCategoryIfShort();
 
-            query.get().addOnCompleteListener(task -> {
-                completedQueries[0]++;
-
-                if (task.isSuccessful() && !task.getResult().isEmpty()) {
-                    // Add attractions from this city
-                    for (QueryDocumentSnapshot document : task.getResult()) {
-                        Attraction attraction = document.toObject(Attraction.class);
-                        attraction.setDocumentId(document.getId());
-                        // Add city info to help users know where it is
-                        attraction.setCity(city);
-                        attractionList.add(attraction);
-                    }
-                    Log.d(TAG, "Added " + task.getResult().size() + " attractions from " + city);
+                if (isFirstPage) {
+                    String filterText = "All".equalsIgnoreCase(category) ? "all" : category;
+                    Toast.makeText(HomeActivity.this, "🎯 Showing " + filterText + " attractions across Sri Lanka", Toast.LENGTH_SHORT).show();
                 }
+            }
 
-                // Check if all queries are completed
-                if (completedQueries[0] >= totalQueries) {
-                    // All queries completed
-                    progressBar.setVisibility(View.GONE);
-
-                    if (attractionList.isEmpty()) {
-                        // No attractions found anywhere - show general placeholder
-                        showGeneralPlaceholder();
-                    } else {
-                        // Sort attractions by name for better organization
-                        attractionList.sort((a1, a2) -> a1.getName().compareToIgnoreCase(a2.getName()));
-                        adapter.notifyDataSetChanged();
+            @Override
+            public void onLoadingChanged(boolean waitingForPage) {
+                adapter.setLoadingFooterVisible(waitingForPage && !attractionList.isEmpty());
+            }
 
-                        String filterText = "All".equalsIgnoreCase(category) ? "all" : category;
-                        Toast.makeText(this, "🎯 Found " + attractionList.size() + " " + filterText +
-                                     " attractions across Sri Lanka", Toast.LENGTH_SHORT).show();
-                    }
+            @Override
+            public void onPageError(Exception exception, boolean isFirstPage) {
+                Log.e(TAG, "Error loading attractions across Sri Lanka: ", exception);
+                progressBar.setVisibility(View.GONE);
+                if (isFirstPage) {
+                    inFlightRequestKey = null; // Allow an explicit retry
                 }
-            });
-        }
+                Toast.makeText(HomeActivity.this, isFirstPage
+                        ? "Error loading data. Please check your internet connection."
+                        : "Couldn't load more attractions. Scroll down to retry.", Toast.LENGTH_LONG).show();
+            }
+        });
+        activePager.loadFirstPage();
     }
 
     /**
@@ -545,7 +1103,7 @@ public class HomeActivity extends BaseActivity {
 
         attractionList.clear();
         attractionList.add(placeholder);
-        adapter.notifyDataSetChanged();
+        refreshAdapter();
 
         Toast.makeText(this, "🌟 Welcome! Start by searching for Sri Lankan cities or adding attractions", Toast.LENGTH_LONG).show();
     }
@@ -38,16 +38,8 @@ public class ImagePagerAdapter extends RecyclerView.Adapter<ImagePagerAdapter.Im
 
     @Override
     public void onBindViewHolder(@NonNull ImageViewHolder holder, int position) {
-        String imageUrl = imageUrls.get(position);
-
-        // Load image with Glide, handling Google Photos URLs
-        if (isGooglePhotosUrl(imageUrl)) {
-            GooglePhotosUrlHelper.processImageUrl(context, imageUrl, processedUrl -> {
-                loadImageWithGlide(holder.imageView, processedUrl);
-            });
-        } else {
-            loadImageWithGlide(holder.imageView, imageUrl);
-        }
+        // Google Photos share links are resolved inside Glide (GooglePhotosModelLoader)
+        loadImageWithGlide(holder.imageView, imageUrls.get(position));
     }
 
     @Override
@@ -64,18 +56,6 @@ public class ImagePagerAdapter extends RecyclerView.Adapter<ImagePagerAdapter.Im
         notifyDataSetChanged();
     }
 
-    /**
-     * Check if URL is a Google Photos URL that needs processing
-     */
-    private boolean isGooglePhotosUrl(String url) {
-        return url != null && (
-                url.contains("photos.app.goo.gl") ||
-                url.contains("photos.google.com/share") ||
-                url.contains("photos.google.com/u/") ||
-                url.contains("photos.google.com/album")
-        );
-    }
-
     /**
      * Load image using Glide with proper error handling
      */
@@ -3,13 +3,20 @@ package com.s23010526.hiddensrilanka;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.util.TypedValue;
+import android.view.View;
 import android.widget.Button;
+import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.viewpager2.widget.ViewPager2;
 import com.bumptech.glide.Glide;
+import com.google.firebase.firestore.FirebaseFirestore;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Location Detail Activity - Shows complete information about a selected attraction
@@ -47,6 +54,12 @@ public class LocationDetailActivity extends AppCompatActivity {
     private ImagePagerAdapter imagePagerAdapter;
     private ArrayList<String> imageUrls;
 
+    // Nearby suggestions - answered from the shared spatial index of loaded attractions
+    private static final int NEARBY_SUGGESTION_COUNT = 5;
+    private static final double NEARBY_SUGGESTION_RADIUS_KM = 30.0;
+    private View cardNearbyAttractions;
+    private LinearLayout llNearbyAttractions;
+
     // Data model - Holds all attraction information
     private Attraction currentAttraction;
 
@@ -80,6 +93,8 @@ public class LocationDetailActivity extends AppCompatActivity {
         tvLocationDescription = findViewById(R.id.tv_location_description);
         tvContributorName = findViewById(R.id.tv_contributor_name);
         btnGetDirections = findViewById(R.id.btn_get_directions);
+        cardNearbyAttractions = findViewById(R.id.card_nearby_attractions);
+        llNearbyAttractions = findViewById(R.id.ll_nearby_attractions);
         // btnShareLocation = findViewById(R.id.btn_share_location); // Commented out as button is not in layout
     }
 
@@ -138,6 +153,152 @@ public class LocationDetailActivity extends AppCompatActivity {
 
         // Display all the loaded data in the UI
         displayAttractionData(contributorName);
+
+        // Lists only carry summaries - fetch the description and full gallery now
+        String documentPath = intent.getStringExtra("attraction_document_path");
+        if (documentPath != null && documentPath.contains("/")) {
+            currentAttraction.setDocumentId(documentPath.substring(documentPath.lastIndexOf('/') + 1));
+        }
+        loadFullDocument(documentPath);
+        loadNearbySuggestions();
+    }
+
+    /**
+     * NEARBY SUGGESTIONS - Closest other attractions, nearest first
+     *
+     * Whatever Home and the map have already loaded is in the shared spatial
+     * index, so suggestions appear immediately without a network round trip.
+     * A geohash query then adds places no screen has loaded yet and the list is
+     * redrawn from the index.
+     */
+    private void loadNearbySuggestions() {
+        if (!currentAttraction.hasLocation()) {
+            return;
+        }
+        showNearbySuggestions();
+
+        new AttractionGeoQuery(FirebaseFirestore.getInstance()).findNearby(
+                currentAttraction.getLatitude(), currentAttraction.getLongitude(), NEARBY_SUGGESTION_RADIUS_KM,
+                new AttractionGeoQuery.Callback() {
+                    @Override
+                    public void onPartialResult(List<Attraction> attractions) {
+                        onResult(attractions);
+                    }
+
+                    @Override
+                    public void onResult(List<Attraction> attractions) {
+                        AttractionSpatialIndex.getShared().insertAll(attractions);
+                        if (!isFinishing() && !isDestroyed()) {
+                            showNearbySuggestions();
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception exception) {
+                        android.util.Log.w("LocationDetail", "Nearby suggestions unavailable: " + exception);
+                    }
+                });
+    }
+
+    private void showNearbySuggestions() {
+        double latitude = currentAttraction.getLatitude();
+        double longitude = currentAttraction.getLongitude();
+        // One extra in case the closest result is this attraction itself
+        List<Attraction> nearest = AttractionSpatialIndex.getShared()
+                .nearest(latitude, longitude, NEARBY_SUGGESTION_COUNT + 1);
+
+        llNearbyAttractions.removeAllViews();
+        int shown = 0;
+        for (Attraction nearby : nearest) {
+            if (shown == NEARBY_SUGGESTION_COUNT) break;
+            if (isCurrentAttraction(nearby)) continue;
+
+            double distanceKm = AttractionGeoQuery.distanceKm(nearby, latitude, longitude);
+            if (distanceKm > NEARBY_SUGGESTION_RADIUS_KM) break; // Nearest first, so the rest are farther
+
+            TextView row = new TextView(this);
+            row.setText(String.format(Locale.getDefault(), "%s  •  %s%.1f km", nearby.getName(),
+                    nearby.isLocationApproximate() ? "~" : "", distanceKm));
+            row.setTextSize(TypedValue.COMPLEX_UNIT_SP, 15);
+            row.setTextColor(ContextCompat.getColor(this, R.color.NavyBlue));
+            int padding = Math.round(8 * getResources().getDisplayMetrics().density);
+            row.setPadding(0, padding, 0, padding);
+            row.setOnClickListener(v -> openNearbyAttraction(nearby));
+            llNearbyAttractions.addView(row);
+            shown++;
+        }
+        cardNearbyAttractions.setVisibility(shown > 0 ? View.VISIBLE : View.GONE);
+    }
+
+    private boolean isCurrentAttraction(Attraction attraction) {
+        if (currentAttraction.getDocumentId() != null) {
+            return currentAttraction.getDocumentId().equals(attraction.getDocumentId());
+        }
+        return attraction.getName() != null && attraction.getName().equals(currentAttraction.getName());
+    }
+
+    /**
+     * Open a suggestion with the same intent keys the list and map use
+     */
+    private void openNearbyAttraction(Attraction attraction) {
+        Intent intent = new Intent(this, LocationDetailActivity.class);
+        intent.putExtra("attraction_name", attraction.getName());
+        intent.putExtra("attraction_city", attraction.getCity());
+        intent.putExtra("attraction_category", attraction.getCategory());
+        intent.putExtra("attraction_description", attraction.getDescription());
+        intent.putExtra("contributor_name", attraction.getContributorName());
+        intent.putExtra("attraction_document_path", AttractionSummaries.fullDocumentPath(attraction));
+        intent.putExtra("attraction_latitude", attraction.getLatitude());
+        intent.putExtra("attraction_longitude", attraction.getLongitude());
+        if (attraction.getImages() != null && !attraction.getImages().isEmpty()) {
+            intent.putExtra("attraction_image_url", attraction.getImages().get(0));
+            intent.putStringArrayListExtra("attraction_images", new ArrayList<>(attraction.getImages()));
+        }
+        startActivity(intent);
+    }
+
+    /**
+     * LAZY DETAIL LOADING - Fetch the full attraction document on demand
+     *
+     * Home and the map page through small summary documents (name, category,
+     * first image), so the long description, contributor and complete image
+     * list are only downloaded here, when the user actually opens a place.
+     * The summary data already on screen stays visible until this arrives.
+     */
+    private void loadFullDocument(String documentPath) {
+        if (documentPath == null || documentPath.isEmpty()) {
+            return;
+        }
+
+        FirebaseFirestore.getInstance().document(documentPath).get()
+                .addOnSuccessListener(this, document -> {
+                    if (!document.exists()) {
+                        android.util.Log.w("LocationDetail", "Full document missing: " + documentPath);
+                        return;
+                    }
+                    Attraction full = AttractionPager.toAttraction(document);
+
+                    currentAttraction.setDescription(full.getDescription());
+                    currentAttraction.setYoutubeUrl(full.getYoutubeUrl());
+                    tvLocationDescription.setText(full.getDescription());
+                    if (full.getContributorName() != null && !full.getContributorName().isEmpty()) {
+                        tvContributorName.setText("Contributed by: " + full.getContributorName());
+                    }
+                    if (full.hasLocation()) {
+                        currentAttraction.setLatitude(full.getLatitude());
+                        currentAttraction.setLongitude(full.getLongitude());
+                    }
+
+                    // Swap the single thumbnail for the whole gallery
+                    if (full.hasImages() && !full.getImages().equals(currentAttraction.getImages())) {
+                        currentAttraction.setImages(new ArrayList<>(full.getImages()));
+                        imageUrls = new ArrayList<>(full.getImages());
+                        setupMultipleImages();
+                    }
+                    android.util.Log.d("LocationDetail", "Loaded full document for " + full.getName());
+                })
+                .addOnFailureListener(this, e ->
+                        android.util.Log.w("LocationDetail", "Could not load full document: " + e.getMessage()));
     }
 
     /**
@@ -259,19 +420,6 @@ public class LocationDetailActivity extends AppCompatActivity {
         tvImageCounter.setVisibility(android.view.View.GONE);
     }
 
-    /**
-     * Utility method to detect Google Photos URLs
-     * These URLs need special processing to extract the actual image
-     */
-    private boolean isGooglePhotosUrl(String url) {
-        return url != null && (
-                url.contains("photos.app.goo.gl") ||       // Shortened share links
-                url.contains("photos.google.com/share") ||  // Direct share links
-                url.contains("photos.google.com/u/") ||     // User photo links
-                url.contains("photos.google.com/album")     // Album links
-        );
-    }
-
 
     /**
      * Set up button click listeners for user interactions
@@ -0,0 +1,170 @@
+package com.s23010526.hiddensrilanka;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * MapMarkerRegistry - Reusable Markers for attractions, keyed by document ID
+ *
+ * {@link #sync} diffs the attractions that should be visible against the
+ * markers already on the map: attractions that stay visible are untouched,
+ * attractions that dropped out (filtered away or scrolled out of the viewport)
+ * have their markers hidden, and a hidden marker is shown again when its
+ * attraction comes back. A newly visible attraction without a marker recycles
+ * the longest-hidden one - moved, relabelled and re-shown - before a new Marker
+ * is ever added, so the number of Marker objects follows what is on screen.
+ *
+ * Hidden markers are capped at {@link #MAX_HIDDEN_MARKERS}; beyond that the
+ * oldest are removed.
+ *
+ * Each marker's tag is its {@link Attraction}.
+ */
+public class MapMarkerRegistry {
+
+    private static final int MAX_HIDDEN_MARKERS = 500;
+
+    private final GoogleMap map;
+    private final ClusterMarkerRenderer.AttractionMarkerFactory markerFactory;
+    private final Map<String, Marker> markersById = new HashMap<>();
+    private final Set<String> visibleIds = new HashSet<>();
+    // Hidden markers in the order they were hidden - the first is recycled first
+    private final LinkedHashSet<String> hiddenIds = new LinkedHashSet<>();
+
+    public MapMarkerRegistry(GoogleMap map, ClusterMarkerRenderer.AttractionMarkerFactory markerFactory) {
+        this.map = map;
+        this.markerFactory = markerFactory;
+    }
+
+    /**
+     * Make exactly the given attractions visible, touching only markers that changed
+     */
+    public void sync(List<Attraction> attractions) {
+        Set<String> nextVisibleIds = new HashSet<>();
+        for (Attraction attraction : attractions) {
+            if (attraction.getDocumentId() != null) {
+                nextVisibleIds.add(attraction.getDocumentId());
+            }
+        }
+
+        // Hide what left first, so those markers can be recycled below
+        for (String id : visibleIds) {
+            if (!nextVisibleIds.contains(id)) {
+                markersById.get(id).setVisible(false);
+                hiddenIds.add(id);
+            }
+        }
+        // ...and take back hidden markers whose attraction returns, so they are not recycled
+        for (String id : nextVisibleIds) {
+            if (hiddenIds.remove(id)) {
+                markersById.get(id).setVisible(true);
+            }
+        }
+
+        Set<String> shown = new HashSet<>();
+        for (Attraction attraction : attractions) {
+            String id = attraction.getDocumentId();
+            if (id == null || !shown.add(id)) continue;
+
+            Marker marker = markersById.get(id);
+            if (marker != null) {
+                Object previous = marker.getTag();
+                if (previous != attraction) {
+                    if (!(previous instanceof Attraction) || !isSameMarker((Attraction) previous, attraction)) {
+                        applyOptions(marker, markerFactory.createMarkerOptions(attraction));
+                    }
+                    marker.setTag(attraction);
+                }
+                continue;
+            }
+
+            if (!hiddenIds.isEmpty()) {
+                // Reuse a marker nobody is looking at
+                Iterator<String> oldest = hiddenIds.iterator();
+                String recycledId = oldest.next();
+                oldest.remove();
+                marker = markersById.remove(recycledId);
+                applyOptions(marker, markerFactory.createMarkerOptions(attraction));
+                marker.setVisible(true);
+            } else {
+                marker = map.addMarker(markerFactory.createMarkerOptions(attraction));
+                if (marker == null) continue;
+            }
+            marker.setTag(attraction);
+            markersById.put(id, marker);
+        }
+
+        Iterator<String> oldest = hiddenIds.iterator();
+        while (hiddenIds.size() > MAX_HIDDEN_MARKERS && oldest.hasNext()) {
+            markersById.remove(oldest.next()).remove();
+            oldest.remove();
+        }
+
+        visibleIds.clear();
+        visibleIds.addAll(shown);
+    }
+
+    /**
+     * Hide every marker but keep them for the next {@link #sync}
+     */
+    public void hideAll() {
+        for (String id : visibleIds) {
+            markersById.get(id).setVisible(false);
+            hiddenIds.add(id);
+        }
+        visibleIds.clear();
+    }
+
+    /**
+     * Remove every marker from the map
+     */
+    public void clear() {
+        for (Marker marker : markersById.values()) {
+            marker.remove();
+        }
+        markersById.clear();
+        visibleIds.clear();
+        hiddenIds.clear();
+    }
+
+    public int getVisibleCount() {
+        return visibleIds.size();
+    }
+
+    public static Attraction getAttraction(Marker marker) {
+        Object tag = marker.getTag();
+        return tag instanceof Attraction ? (Attraction) tag : null;
+    }
+
+    private static boolean isSameMarker(Attraction previous, Attraction next) {
+        return previous.getLatitude() == next.getLatitude()
+                && previous.getLongitude() == next.getLongitude()
+                && equals(previous.getName(), next.getName())
+                && equals(previous.getCategory(), next.getCategory());
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static void applyOptions(Marker marker, MarkerOptions options) {
+        LatLng position = options.getPosition();
+        if (position != null) {
+            marker.setPosition(position);
+        }
+        marker.setTitle(options.getTitle());
+        marker.setSnippet(options.getSnippet());
+        if (options.getIcon() != null) {
+            marker.setIcon(options.getIcon());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.s23010526.hiddensrilanka;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MarkerClusterEngine - Grid-based marker clustering in Web Mercator pixel space
+ *
+ * At zoom level z the world is 256 * 2^z density-independent pixels wide. Attractions are bucketed
+ * into square cells of {@link #cellSizePx} screen pixels at that zoom; every cell
+ * holding more than one attraction becomes one cluster positioned at the
+ * centroid of its members. Because the grid depends only on the integer zoom,
+ * clustering just the attractions around the viewport yields the same keys as
+ * clustering everything, and the cost follows what is on screen.
+ *
+ * The engine has no Android dependencies and is meant to run on a background
+ * thread.
+ */
+public class MarkerClusterEngine {
+
+    public static final int DEFAULT_CELL_SIZE_PX = 100;
+    // Past this zoom every attraction gets its own marker
+    public static final int MAX_CLUSTER_ZOOM = 16;
+    private static final int TILE_SIZE_PX = 256;
+
+    /**
+     * One marker's worth of attractions - either a single attraction or a cluster
+     */
+    public static class Cluster {
+        private final String key;
+        private final double latitude;
+        private final double longitude;
+        private final List<Attraction> items;
+
+        Cluster(String key, double latitude, double longitude, List<Attraction> items) {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.items = Collections.unmodifiableList(items);
+        }
+
+        /**
+         * Stable identity: "a:{documentId}" for single attractions, "c:{zoom}:{x}:{y}" for clusters
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public List<Attraction> getItems() {
+            return items;
+        }
+
+        public int getSize() {
+            return items.size();
+        }
+
+        public boolean isCluster() {
+            return items.size() > 1;
+        }
+    }
+
+    private final int cellSizePx;
+
+    public MarkerClusterEngine() {
+        this(DEFAULT_CELL_SIZE_PX);
+    }
+
+    public MarkerClusterEngine(int cellSizePx) {
+        this.cellSizePx = cellSizePx;
+    }
+
+    /**
+     * Cluster attractions for one zoom level
+     *
+     * @param attractions Attractions with coordinates
+     * @param zoom Integer zoom level (camera zoom rounded down)
+     */
+    public List<Cluster> cluster(List<Attraction> attractions, int zoom) {
+        if (zoom > MAX_CLUSTER_ZOOM) {
+            List<Cluster> singles = new ArrayList<>(attractions.size());
+            for (Attraction attraction : attractions) {
+                List<Attraction> members = new ArrayList<>(1);
+                members.add(attraction);
+                singles.add(new Cluster(singleKey(attraction), attraction.getLatitude(), attraction.getLongitude(), members));
+            }
+            return singles;
+        }
+
+        double worldSizePx = TILE_SIZE_PX * Math.pow(2, zoom);
+        Map<Long, List<Attraction>> cells = new LinkedHashMap<>();
+        Map<Long, int[]> cellCoordinates = new HashMap<>();
+
+        for (Attraction attraction : attractions) {
+            int cellX = (int) Math.floor(longitudeToX(attraction.getLongitude(), worldSizePx) / cellSizePx);
+            int cellY = (int) Math.floor(latitudeToY(attraction.getLatitude(), worldSizePx) / cellSizePx);
+            long cellKey = ((long) cellX << 32) | (cellY & 0xffffffffL);
+
+            List<Attraction> members = cells.get(cellKey);
+            if (members == null) {
+                members = new ArrayList<>();
+                cells.put(cellKey, members);
+                cellCoordinates.put(cellKey, new int[]{cellX, cellY});
+            }
+            members.add(attraction);
+        }
+
+        List<Cluster> clusters = new ArrayList<>(cells.size());
+        for (Map.Entry<Long, List<Attraction>> cell : cells.entrySet()) {
+            List<Attraction> members = cell.getValue();
+            if (members.size() == 1) {
+                Attraction single = members.get(0);
+                clusters.add(new Cluster(singleKey(single), single.getLatitude(), single.getLongitude(), members));
+                continue;
+            }
+
+            double latitudeSum = 0;
+            double longitudeSum = 0;
+            for (Attraction member : members) {
+                latitudeSum += member.getLatitude();
+                longitudeSum += member.getLongitude();
+            }
+            int[] coordinates = cellCoordinates.get(cell.getKey());
+            String key = "c:" + zoom + ":" + coordinates[0] + ":" + coordinates[1];
+            clusters.add(new Cluster(key, latitudeSum / members.size(), longitudeSum / members.size(), members));
+        }
+        return clusters;
+    }
+
+    public static String singleKey(Attraction attraction) {
+        return "a:" + attraction.getDocumentId();
+    }
+
+    static double longitudeToX(double longitude, double worldSizePx) {
+        return (longitude + 180.0) / 360.0 * worldSizePx;
+    }
+
+    static double latitudeToY(double latitude, double worldSizePx) {
+        double sin = Math.sin(Math.toRadians(latitude));
+        // Clamp to avoid infinity at the poles
+        sin = Math.max(-0.9999, Math.min(0.9999, sin));
+        return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * worldSizePx;
+    }
+}
@@ -0,0 +1,128 @@
+package com.s23010526.hiddensrilanka;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PhotoPageScanner - Finds the first direct image URL in a Google Photos share page
+ *
+ * The page is streamed through a fixed char buffer and never held whole: at most
+ * {@link #DEFAULT_BYTE_BUDGET} bytes are read, and scanning stops at the first
+ * googleusercontent URL, which on share pages sits in the og:image tag near the
+ * top. A URL split across two reads is still found because the unscanned tail of
+ * one window is carried into the next.
+ *
+ * Plain Java with no Android dependencies, so it is measured on the JVM against
+ * recorded pages (see PhotoPageScannerBenchmark).
+ */
+public final class PhotoPageScanner {
+
+    public static final int DEFAULT_BYTE_BUDGET = 256 * 1024;
+
+    private static final Pattern IMAGE_URL =
+            Pattern.compile("https://lh[0-9]\\.googleusercontent\\.com/[^\"'\\s]+");
+    // Longest prefix that can end a window without being a match yet: "https://lhN.googleusercontent.com/"
+    private static final int PREFIX_CARRY = 34;
+    private static final int MAX_URL_CHARS = 4096;
+    private static final int CHUNK_CHARS = 8192;
+
+    private PhotoPageScanner() {
+    }
+
+    /**
+     * Scan a page for its first direct image URL
+     *
+     * @param page Response body; read up to byteBudget bytes, plus one to tell a
+     *             page that ends exactly at the budget from a longer one; not closed
+     * @param byteBudget Most bytes to read before giving up
+     * @return The URL, or null when none was found within the budget
+     */
+    public static String findImageUrl(InputStream page, int byteBudget) throws IOException {
+        BudgetedInputStream budgeted = new BudgetedInputStream(page, byteBudget);
+        Reader reader = new InputStreamReader(budgeted, StandardCharsets.UTF_8);
+        char[] chunk = new char[CHUNK_CHARS];
+        StringBuilder window = new StringBuilder(CHUNK_CHARS + MAX_URL_CHARS);
+        Matcher matcher = IMAGE_URL.matcher("");
+
+        int read;
+        while ((read = reader.read(chunk)) != -1) {
+            window.append(chunk, 0, read);
+            matcher.reset(window);
+            if (matcher.find()) {
+                if (matcher.end() < window.length()) {
+                    return matcher.group();
+                }
+                // The URL may continue in the next read - keep it and read on
+                if (window.length() - matcher.start() > MAX_URL_CHARS) {
+                    window.setLength(0);
+                } else {
+                    window.delete(0, matcher.start());
+                }
+                continue;
+            }
+            if (window.length() > PREFIX_CARRY) {
+                window.delete(0, window.length() - PREFIX_CARRY);
+            }
+        }
+
+        if (budgeted.isTruncated()) {
+            // Cut off by the budget - a URL still open here may be truncated
+            return null;
+        }
+        // The end of the page terminates a URL still open in the window
+        matcher.reset(window);
+        return matcher.find() ? matcher.group() : null;
+    }
+
+    /**
+     * Ends the stream after a fixed number of bytes
+     */
+    private static final class BudgetedInputStream extends InputStream {
+        private final InputStream in;
+        private int remaining;
+        private boolean truncated;
+
+        // True only when the page had data beyond the budget, not when it ended right at it
+        boolean isTruncated() throws IOException {
+            if (remaining <= 0 && !truncated) {
+                truncated = in.read() != -1;
+                remaining = -1; // Probe at most once
+            }
+            return truncated;
+        }
+
+        BudgetedInputStream(InputStream in, int budget) {
+            this.in = in;
+            this.remaining = budget;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(buffer, offset, Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
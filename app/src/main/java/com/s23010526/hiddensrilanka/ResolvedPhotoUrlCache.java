@@ -0,0 +1,171 @@
+package com.s23010526.hiddensrilanka;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+import android.util.LruCache;
+
+/**
+ * ResolvedPhotoUrlCache - Share link -> direct image URL, in memory and on disk
+ *
+ * Resolving a Google Photos share link means chasing redirects and scraping a
+ * page, so each result is kept in two tiers:
+ * - an in-memory LRU of {@link #MEMORY_ENTRIES} links, read on the main thread
+ *   so a card that was seen before binds its image immediately
+ * - a SQLite table that survives process death, read on the resolver threads
+ *
+ * Successful resolutions live for {@link #POSITIVE_TTL_MS}. Links that could
+ * not be resolved are cached too, for the much shorter {@link #NEGATIVE_TTL_MS},
+ * so a broken link is not re-scraped on every bind. Once an entry is past
+ * {@link #REFRESH_AHEAD_FRACTION} of its lifetime it is still served, but
+ * {@link Entry#needsRefresh} tells the caller to re-resolve it in the background.
+ *
+ * All methods are thread-safe.
+ */
+public class ResolvedPhotoUrlCache extends SQLiteOpenHelper {
+
+    private static final String TAG = "ResolvedPhotoUrlCache";
+
+    private static final String DATABASE_NAME = "resolved_photo_urls.db";
+    private static final int DATABASE_VERSION = 1;
+    private static final String TABLE_RESOLVED = "resolved_urls";
+    private static final String COL_SHARE_URL = "share_url";
+    private static final String COL_DIRECT_URL = "direct_url";
+    private static final String COL_RESOLVED_AT = "resolved_at";
+
+    private static final int MEMORY_ENTRIES = 256;
+    private static final long POSITIVE_TTL_MS = 7L * 24 * 60 * 60 * 1000;
+    private static final long NEGATIVE_TTL_MS = 15L * 60 * 1000; // Short - the failure may have been the network
+    private static final double REFRESH_AHEAD_FRACTION = 0.8;
+
+    private static ResolvedPhotoUrlCache instance;
+
+    private final LruCache<String, Entry> memory = new LruCache<>(MEMORY_ENTRIES);
+
+    /**
+     * One cached resolution; directUrl is null when the link could not be resolved
+     */
+    public static final class Entry {
+        private final String directUrl;
+        private final long resolvedAt;
+
+        Entry(String directUrl, long resolvedAt) {
+            this.directUrl = directUrl;
+            this.resolvedAt = resolvedAt;
+        }
+
+        private long ttl() {
+            return directUrl != null ? POSITIVE_TTL_MS : NEGATIVE_TTL_MS;
+        }
+
+        public boolean isExpired(long now) {
+            return now - resolvedAt >= ttl();
+        }
+
+        /**
+         * Still valid, but close enough to expiry to re-resolve in the background
+         */
+        public boolean needsRefresh(long now) {
+            return now - resolvedAt >= ttl() * REFRESH_AHEAD_FRACTION;
+        }
+
+        /**
+         * The URL to load: the direct URL, or the share link itself when unresolved
+         */
+        public String urlFor(String shareUrl) {
+            return directUrl != null ? directUrl : shareUrl;
+        }
+    }
+
+    public static synchronized ResolvedPhotoUrlCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new ResolvedPhotoUrlCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private ResolvedPhotoUrlCache(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_RESOLVED + " ("
+                + COL_SHARE_URL + " TEXT PRIMARY KEY, "
+                + COL_DIRECT_URL + " TEXT, "
+                + COL_RESOLVED_AT + " INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Everything here can be resolved again, so just start over
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_RESOLVED);
+        onCreate(db);
+    }
+
+    /**
+     * Memory tier only - cheap enough for the main thread
+     *
+     * @return The entry, or null when it is not in memory or has expired
+     */
+    public Entry getFromMemory(String shareUrl) {
+        Entry entry = memory.get(shareUrl);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            memory.remove(shareUrl);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Memory, then disk - call from a background thread
+     * Disk hits are promoted into memory.
+     *
+     * @return The entry, or null when neither tier has a live one
+     */
+    public Entry get(String shareUrl) {
+        Entry entry = getFromMemory(shareUrl);
+        if (entry != null) {
+            return entry;
+        }
+
+        try (Cursor cursor = getReadableDatabase().query(TABLE_RESOLVED,
+                new String[]{COL_DIRECT_URL, COL_RESOLVED_AT},
+                COL_SHARE_URL + " = ?", new String[]{shareUrl}, null, null, null)) {
+            if (cursor.moveToFirst()) {
+                entry = new Entry(cursor.isNull(0) ? null : cursor.getString(0), cursor.getLong(1));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading resolved URL: " + e.getMessage());
+        }
+
+        if (entry == null || entry.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        memory.put(shareUrl, entry);
+        return entry;
+    }
+
+    /**
+     * Store a resolution in both tiers - call from a background thread
+     *
+     * @param directUrl The resolved URL, or null to cache a failed resolution
+     */
+    public void put(String shareUrl, String directUrl) {
+        long now = System.currentTimeMillis();
+        memory.put(shareUrl, new Entry(directUrl, now));
+
+        ContentValues values = new ContentValues();
+        values.put(COL_SHARE_URL, shareUrl);
+        values.put(COL_DIRECT_URL, directUrl);
+        values.put(COL_RESOLVED_AT, now);
+        try {
+            getWritableDatabase().insertWithOnConflict(TABLE_RESOLVED, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        } catch (Exception e) {
+            Log.e(TAG, "Error saving resolved URL: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.s23010526.hiddensrilanka;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * SriLankaGazetteer - Offline reverse geocoder for Sri Lankan towns
+ *
+ * Town centroids are bundled in assets/sri_lanka_towns.csv (every city offered in
+ * AddLocationActivity) and bucketed into a fixed grid of 0.1 degree cells. A
+ * nearest-town lookup walks outward ring by ring from the fix's cell and stops
+ * as soon as no unvisited ring can hold a closer town, so resolving a GPS fix to
+ * a city touches a handful of towns and never needs the network.
+ *
+ * The asset is parsed once on a background thread; lookups afterwards are pure
+ * in-memory work and safe to run on the main thread.
+ */
+public class SriLankaGazetteer {
+
+    private static final String TAG = "SriLankaGazetteer";
+    private static final String ASSET_FILE = "sri_lanka_towns.csv";
+
+    private static final double CELL_DEGREES = 0.1;
+    // Shortest length of one degree anywhere in Sri Lanka (longitude at ~10 N), used to bound ring searches
+    private static final double MIN_KM_PER_DEGREE = 109.0;
+
+    private static SriLankaGazetteer instance;
+    private static final List<LoadCallback> pendingCallbacks = new ArrayList<>();
+    private static final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * A named town centroid
+     */
+    public static class Town {
+        private final String name;
+        private final String province;
+        private final double latitude;
+        private final double longitude;
+
+        public Town(String name, String province, double latitude, double longitude) {
+            this.name = name;
+            this.province = province;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getProvince() {
+            return province;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public double distanceKmTo(double lat, double lng) {
+            return GeoUtils.distanceKm(latitude, longitude, lat, lng);
+        }
+    }
+
+    /**
+     * Receives the loaded gazetteer on the main thread
+     */
+    public interface LoadCallback {
+        void onLoaded(SriLankaGazetteer gazetteer);
+    }
+
+    private final List<Town> towns;
+    private final Map<Long, List<Town>> grid = new HashMap<>();
+    private final Map<String, Town> townsByName = new HashMap<>();
+    private int minRow = Integer.MAX_VALUE, maxRow = Integer.MIN_VALUE;
+    private int minCol = Integer.MAX_VALUE, maxCol = Integer.MIN_VALUE;
+
+    SriLankaGazetteer(List<Town> towns) {
+        this.towns = Collections.unmodifiableList(new ArrayList<>(towns));
+        for (Town town : this.towns) {
+            int row = cellIndex(town.latitude);
+            int col = cellIndex(town.longitude);
+            minRow = Math.min(minRow, row);
+            maxRow = Math.max(maxRow, row);
+            minCol = Math.min(minCol, col);
+            maxCol = Math.max(maxCol, col);
+
+            List<Town> bucket = grid.get(cellKey(row, col));
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                grid.put(cellKey(row, col), bucket);
+            }
+            bucket.add(town);
+
+            String key = town.name.toLowerCase(Locale.ROOT);
+            if (!townsByName.containsKey(key)) {
+                townsByName.put(key, town);
+            }
+        }
+    }
+
+    /**
+     * Get the shared gazetteer, parsing the bundled asset off the main thread on first use
+     *
+     * @param context Any context - only the application context is retained
+     * @param callback Invoked on the main thread once the gazetteer is available
+     */
+    public static void load(Context context, LoadCallback callback) {
+        Context appContext = context.getApplicationContext();
+        synchronized (SriLankaGazetteer.class) {
+            if (instance != null) {
+                SriLankaGazetteer loaded = instance;
+                mainHandler.post(() -> callback.onLoaded(loaded));
+                return;
+            }
+            pendingCallbacks.add(callback);
+            if (pendingCallbacks.size() > 1) {
+                return; // Parse already running
+            }
+        }
+
+        loadExecutor.execute(() -> {
+            SriLankaGazetteer loaded;
+            try (InputStream input = appContext.getAssets().open(ASSET_FILE)) {
+                loaded = fromCsv(input);
+                Log.d(TAG, "Loaded " + loaded.size() + " towns from " + ASSET_FILE);
+            } catch (IOException e) {
+                Log.e(TAG, "Could not read " + ASSET_FILE + ": " + e.getMessage());
+                loaded = new SriLankaGazetteer(new ArrayList<>());
+            }
+
+            List<LoadCallback> callbacks;
+            synchronized (SriLankaGazetteer.class) {
+                instance = loaded;
+                callbacks = new ArrayList<>(pendingCallbacks);
+                pendingCallbacks.clear();
+            }
+            SriLankaGazetteer result = loaded;
+            mainHandler.post(() -> {
+                for (LoadCallback pending : callbacks) {
+                    pending.onLoaded(result);
+                }
+            });
+        });
+    }
+
+    /**
+     * Parse "name,province,latitude,longitude" rows; blank lines and # comments are skipped
+     */
+    static SriLankaGazetteer fromCsv(InputStream input) throws IOException {
+        List<Town> towns = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split(",");
+            if (parts.length != 4) {
+                Log.w(TAG, "Skipping malformed gazetteer row: " + line);
+                continue;
+            }
+            try {
+                towns.add(new Town(parts[0].trim(), parts[1].trim(),
+                        Double.parseDouble(parts[2].trim()), Double.parseDouble(parts[3].trim())));
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Skipping gazetteer row with bad coordinates: " + line);
+            }
+        }
+        return new SriLankaGazetteer(towns);
+    }
+
+    /**
+     * Find the town whose centroid is closest to the given point
+     *
+     * @return The nearest town, or null when the gazetteer is empty
+     */
+    public Town findNearest(double lat, double lng) {
+        if (towns.isEmpty()) {
+            return null;
+        }
+
+        int row = cellIndex(lat);
+        int col = cellIndex(lng);
+        // Rings needed to reach the farthest occupied cell from the query cell
+        int maxRing = Math.max(Math.max(Math.abs(row - minRow), Math.abs(row - maxRow)),
+                Math.max(Math.abs(col - minCol), Math.abs(col - maxCol)));
+
+        Town best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int r = row - ring; r <= row + ring; r++) {
+                boolean edgeRow = r == row - ring || r == row + ring;
+                // Interior rows only contribute their two edge cells
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int c = col - ring; c <= col + ring; c += step) {
+                    List<Town> bucket = grid.get(cellKey(r, c));
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (Town town : bucket) {
+                        double distance = town.distanceKmTo(lat, lng);
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            best = town;
+                        }
+                    }
+                }
+            }
+            // Every cell in the next ring is at least ring cells away from the query point
+            if (best != null && bestDistance <= ring * CELL_DEGREES * MIN_KM_PER_DEGREE) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Case-insensitive lookup of a town by name
+     */
+    public Town findByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return townsByName.get(name.trim().toLowerCase(Locale.ROOT));
+    }
+
+    public List<Town> getTowns() {
+        return towns;
+    }
+
+    public int size() {
+        return towns.size();
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
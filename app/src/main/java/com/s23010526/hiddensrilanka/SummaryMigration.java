@@ -0,0 +1,177 @@
+package com.s23010526.hiddensrilanka;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SummaryMigration - One-off backfill of summaries and manifests for older databases
+ *
+ * Databases populated before summaries and manifests existed hold only full
+ * attraction documents. Instead of every client guessing from empty results
+ * and downloading every full document, one client claims the migration on the
+ * migrations/{@link #MIGRATION_ID} document in a transaction, writes the
+ * missing summaries, recounts every city's manifest and marks the migration
+ * done. Everyone else reads that single document and moves on.
+ *
+ * A claim that has not finished within {@link #CLAIM_TIMEOUT_MS} (the claiming
+ * app was killed) can be taken over by the next client.
+ *
+ * A single city whose summaries or manifest a reader finds out of step is
+ * repaired the same way by {@link #repairCity}: one client claims
+ * migrations/{@link #CITY_REPAIR_PREFIX}{city}, recounts it and backfills its
+ * summaries, and nobody repeats that for {@link #CLAIM_TIMEOUT_MS}.
+ */
+public final class SummaryMigration {
+
+    private static final String TAG = "SummaryMigration";
+    private static final String MIGRATION_ID = "attractionSummariesV1";
+    private static final String CITY_REPAIR_PREFIX = "cityRepair-";
+    private static final String FIELD_STATE = "state";
+    private static final String FIELD_CLAIMED_AT = "claimedAt";
+    private static final String STATE_RUNNING = "running";
+    private static final String STATE_DONE = "done";
+    private static final long CLAIM_TIMEOUT_MS = 60L * 60 * 1000;
+
+    /**
+     * Receives whether summaries can be trusted to cover every attraction
+     */
+    public interface Callback {
+        void onMigrationState(boolean complete);
+    }
+
+    private static boolean knownComplete = false;
+
+    private SummaryMigration() {
+    }
+
+    /**
+     * Report whether the migration is complete, claiming and running it if nobody has
+     *
+     * @param callback Called once with the current state; may be null
+     */
+    public static void ensure(FirebaseFirestore firestore, Callback callback) {
+        if (knownComplete) {
+            if (callback != null) callback.onMigrationState(true);
+            return;
+        }
+
+        DocumentReference migration = firestore.collection("migrations").document(MIGRATION_ID);
+        claim(firestore, migration, false).addOnSuccessListener(outcome -> {
+            knownComplete = STATE_DONE.equals(outcome);
+            if (callback != null) callback.onMigrationState(knownComplete);
+            if ("claimed".equals(outcome)) {
+                run(firestore, migration);
+            }
+        }).addOnFailureListener(e -> {
+            Log.w(TAG, "Could not read migration state: " + e.getMessage());
+            if (callback != null) callback.onMigrationState(false);
+        });
+    }
+
+    /**
+     * Recount one city's manifest and backfill its summaries, unless another
+     * client has claimed that within the last {@link #CLAIM_TIMEOUT_MS}
+     *
+     * Call only for a city a reader actually found attractions in, so searching
+     * for a misspelt or empty city never creates a cities/{city} document.
+     */
+    public static void repairCity(FirebaseFirestore firestore, String city) {
+        DocumentReference repair = firestore.collection("migrations").document(CITY_REPAIR_PREFIX + city);
+        claim(firestore, repair, true).addOnSuccessListener(outcome -> {
+            if (!"claimed".equals(outcome)) {
+                Log.d(TAG, "Repair of " + city + " already " + outcome);
+                return;
+            }
+            Log.d(TAG, "Repairing manifest and summaries for " + city);
+            CityManifest.rebuild(firestore, city);
+            AttractionSummaries.backfillCity(firestore, city);
+            Map<String, Object> done = new HashMap<>();
+            done.put(FIELD_STATE, STATE_DONE);
+            done.put(FIELD_CLAIMED_AT, Timestamp.now());
+            repair.set(done);
+        }).addOnFailureListener(e -> Log.w(TAG, "Could not claim repair of " + city + ": " + e.getMessage()));
+    }
+
+    /**
+     * Claim a job document in a transaction
+     *
+     * @param expires Whether a finished job may be claimed again once
+     *                {@link #CLAIM_TIMEOUT_MS} has passed since it finished
+     * @return "claimed" when this client should run the job, otherwise its current state
+     */
+    private static Task<String> claim(FirebaseFirestore firestore, DocumentReference job, boolean expires) {
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot current = transaction.get(job);
+            String state = current.getString(FIELD_STATE);
+            Timestamp claimedAt = current.getTimestamp(FIELD_CLAIMED_AT);
+            boolean recent = claimedAt != null
+                    && System.currentTimeMillis() - claimedAt.toDate().getTime() < CLAIM_TIMEOUT_MS;
+            if (STATE_DONE.equals(state) && (!expires || recent)) {
+                return STATE_DONE;
+            }
+            if (STATE_RUNNING.equals(state) && recent) {
+                return STATE_RUNNING; // Someone else is on it
+            }
+            Map<String, Object> claim = new HashMap<>();
+            claim.put(FIELD_STATE, STATE_RUNNING);
+            claim.put(FIELD_CLAIMED_AT, Timestamp.now());
+            transaction.set(job, claim);
+            return "claimed";
+        });
+    }
+
+    private static void run(FirebaseFirestore firestore, DocumentReference migration) {
+        Log.d(TAG, "Running summary migration");
+        firestore.collectionGroup(AttractionSummaries.SUMMARY_COLLECTION).get().addOnSuccessListener(summaries -> {
+            Set<String> summarizedPaths = new HashSet<>();
+            for (QueryDocumentSnapshot summary : summaries) {
+                summarizedPaths.add(summary.getReference().getPath());
+            }
+
+            firestore.collectionGroup(AttractionSummaries.FULL_COLLECTION).get().addOnSuccessListener(fullDocuments -> {
+                List<DocumentSnapshot> missing = new ArrayList<>();
+                Set<String> cities = new LinkedHashSet<>();
+                for (QueryDocumentSnapshot document : fullDocuments) {
+                    DocumentReference city = document.getReference().getParent().getParent();
+                    if (city == null) continue;
+                    cities.add(city.getId());
+                    String summaryPath = AttractionSummaries.summaryReferenceFor(document.getReference()).getPath();
+                    if (!summarizedPaths.contains(summaryPath)) {
+                        missing.add(document);
+                    }
+                }
+
+                List<Task<Void>> writes = AttractionSummaries.writeSummaries(firestore, "all cities", missing);
+                Tasks.whenAll(writes).addOnSuccessListener(unused -> {
+                    for (String city : cities) {
+                        CityManifest.rebuild(firestore, city);
+                    }
+                    Map<String, Object> done = new HashMap<>();
+                    done.put(FIELD_STATE, STATE_DONE);
+                    done.put(FIELD_CLAIMED_AT, Timestamp.now());
+                    migration.set(done).addOnSuccessListener(ignored -> {
+                        knownComplete = true;
+                        Log.d(TAG, "Summary migration done: " + missing.size() + " summaries, "
+                                + cities.size() + " cities");
+                    });
+                }).addOnFailureListener(e -> Log.w(TAG, "Migration writes failed, will retry after the claim expires: "
+                        + e.getMessage()));
+            }).addOnFailureListener(e -> Log.w(TAG, "Migration read failed: " + e.getMessage()));
+        }).addOnFailureListener(e -> Log.w(TAG, "Migration read failed: " + e.getMessage()));
+    }
+}
@@ -0,0 +1,123 @@
+package com.s23010526.hiddensrilanka;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Benchmark of {@link AttractionSpatialIndex} against linear scans at 100k points
+ *
+ * Timings are printed rather than asserted so the suite stays stable on slow
+ * machines; the results of both approaches are compared so the numbers are
+ * only reported for correct answers. Skipped in normal test runs; run with:
+ * ./gradlew :app:testDebugUnitTest --tests "*AttractionSpatialIndexBenchmark" -Pbenchmarks=true -i
+ */
+public class AttractionSpatialIndexBenchmark {
+
+    private static final int POINTS = 100_000;
+    private static final int QUERIES = 1_000;
+    private static final int K = 20;
+    private static final double RADIUS_KM = 10.0;
+
+    @Test
+    public void benchmark_100kPoints() {
+        Assume.assumeTrue(Boolean.getBoolean("benchmarks"));
+        List<Attraction> points = AttractionSpatialIndexTest.randomSriLankaPoints(POINTS, 42);
+
+        long start = System.nanoTime();
+        AttractionSpatialIndex index = new AttractionSpatialIndex(points);
+        report("build", System.nanoTime() - start, 1);
+        assertEquals(POINTS, index.size());
+
+        Random random = new Random(43);
+        double[][] centres = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            centres[i] = new double[]{5.9 + random.nextDouble() * 4.0, 79.5 + random.nextDouble() * 2.4};
+        }
+
+        // Viewport-sized boxes (about 0.2 x 0.2 degrees)
+        long indexed = 0, scanned = 0;
+        for (double[] centre : centres) {
+            double minLat = centre[0] - 0.1, maxLat = centre[0] + 0.1;
+            double minLng = centre[1] - 0.1, maxLng = centre[1] + 0.1;
+
+            start = System.nanoTime();
+            int found = index.query(minLat, minLng, maxLat, maxLng).size();
+            indexed += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int expected = 0;
+            for (Attraction point : points) {
+                if (point.getLatitude() >= minLat && point.getLatitude() <= maxLat
+                        && point.getLongitude() >= minLng && point.getLongitude() <= maxLng) {
+                    expected++;
+                }
+            }
+            scanned += System.nanoTime() - start;
+            assertEquals(expected, found);
+        }
+        report("range query (index)", indexed, QUERIES);
+        report("range query (scan)", scanned, QUERIES);
+
+        indexed = 0;
+        scanned = 0;
+        for (double[] centre : centres) {
+            start = System.nanoTime();
+            List<Attraction> nearest = index.nearest(centre[0], centre[1], K);
+            indexed += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<Double> distances = new ArrayList<>(points.size());
+            for (Attraction point : points) {
+                distances.add(AttractionSpatialIndexTest.distance(point, centre[0], centre[1]));
+            }
+            Collections.sort(distances);
+            scanned += System.nanoTime() - start;
+
+            assertEquals(distances.get(K - 1),
+                    AttractionSpatialIndexTest.distance(nearest.get(K - 1), centre[0], centre[1]), 1e-9);
+        }
+        report(K + "-nearest (index)", indexed, QUERIES);
+        report(K + "-nearest (scan + sort)", scanned, QUERIES);
+
+        indexed = 0;
+        scanned = 0;
+        for (double[] centre : centres) {
+            start = System.nanoTime();
+            int found = index.withinRadius(centre[0], centre[1], RADIUS_KM).size();
+            indexed += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int expected = 0;
+            for (Attraction point : points) {
+                if (AttractionSpatialIndexTest.distance(point, centre[0], centre[1]) <= RADIUS_KM) {
+                    expected++;
+                }
+            }
+            scanned += System.nanoTime() - start;
+            assertEquals(expected, found);
+        }
+        report("radius " + RADIUS_KM + " km (index)", indexed, QUERIES);
+        report("radius " + RADIUS_KM + " km (scan)", scanned, QUERIES);
+
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            index.remove(points.get(i));
+            index.insert(points.get(i));
+        }
+        report("remove + insert", System.nanoTime() - start, QUERIES);
+        assertEquals(POINTS, index.size());
+    }
+
+    private static void report(String operation, long totalNanos, int operations) {
+        System.out.println(String.format(Locale.ROOT, "AttractionSpatialIndex %-28s %10.3f ms/op",
+                operation, totalNanos / 1e6 / operations));
+    }
+}
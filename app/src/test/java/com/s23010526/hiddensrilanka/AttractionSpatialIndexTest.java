@@ -0,0 +1,205 @@
+package com.s23010526.hiddensrilanka;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link AttractionSpatialIndex}, checked against brute-force scans
+ */
+public class AttractionSpatialIndexTest {
+
+    private static final double EPSILON_KM = 1e-9;
+
+    @Test
+    public void query_returnsExactlyThePointsInsideTheBox() {
+        List<Attraction> points = randomSriLankaPoints(5000, 1);
+        AttractionSpatialIndex index = new AttractionSpatialIndex(points);
+
+        Random random = new Random(2);
+        for (int i = 0; i < 100; i++) {
+            double minLat = 5.9 + random.nextDouble() * 3.5;
+            double minLng = 79.5 + random.nextDouble() * 2.0;
+            double maxLat = minLat + random.nextDouble() * 0.5;
+            double maxLng = minLng + random.nextDouble() * 0.5;
+
+            Set<String> expected = new HashSet<>();
+            for (Attraction point : points) {
+                if (point.getLatitude() >= minLat && point.getLatitude() <= maxLat
+                        && point.getLongitude() >= minLng && point.getLongitude() <= maxLng) {
+                    expected.add(point.getDocumentId());
+                }
+            }
+            assertEquals(expected, ids(index.query(minLat, minLng, maxLat, maxLng)));
+        }
+    }
+
+    @Test
+    public void nearest_matchesBruteForceOrder() {
+        List<Attraction> points = randomSriLankaPoints(5000, 3);
+        AttractionSpatialIndex index = new AttractionSpatialIndex(points);
+
+        Random random = new Random(4);
+        for (int i = 0; i < 100; i++) {
+            double lat = 5.9 + random.nextDouble() * 4.0;
+            double lng = 79.5 + random.nextDouble() * 2.4;
+
+            List<Double> expected = sortedDistances(points, lat, lng);
+            List<Attraction> nearest = index.nearest(lat, lng, 20);
+
+            assertEquals(20, nearest.size());
+            for (int k = 0; k < nearest.size(); k++) {
+                assertEquals(expected.get(k), distance(nearest.get(k), lat, lng), EPSILON_KM);
+            }
+        }
+    }
+
+    @Test
+    public void nearest_returnsEverythingWhenKExceedsSize() {
+        List<Attraction> points = randomSriLankaPoints(10, 5);
+        AttractionSpatialIndex index = new AttractionSpatialIndex(points);
+
+        assertEquals(10, index.nearest(7.0, 80.5, 50).size());
+    }
+
+    @Test
+    public void nearest_findsPointsFromOutsideTheirCell() {
+        AttractionSpatialIndex index = new AttractionSpatialIndex(randomSriLankaPoints(2000, 6));
+        Attraction offshore = attraction("offshore", 6.0, 82.5);
+        index.insert(offshore);
+
+        // East of every other point, so the closest one sits in a cell to the west
+        List<Attraction> nearest = index.nearest(6.0, 83.0, 1);
+        assertEquals("offshore", nearest.get(0).getDocumentId());
+    }
+
+    @Test
+    public void withinRadius_matchesBruteForceAndIsSorted() {
+        List<Attraction> points = randomSriLankaPoints(5000, 7);
+        AttractionSpatialIndex index = new AttractionSpatialIndex(points);
+
+        Random random = new Random(8);
+        for (int i = 0; i < 50; i++) {
+            double lat = 5.9 + random.nextDouble() * 4.0;
+            double lng = 79.5 + random.nextDouble() * 2.4;
+            double radiusKm = 1 + random.nextDouble() * 30;
+
+            Set<String> expected = new HashSet<>();
+            for (Attraction point : points) {
+                if (distance(point, lat, lng) <= radiusKm) {
+                    expected.add(point.getDocumentId());
+                }
+            }
+
+            List<Attraction> found = index.withinRadius(lat, lng, radiusKm);
+            assertEquals(expected, ids(found));
+            for (int k = 1; k < found.size(); k++) {
+                assertTrue(distance(found.get(k - 1), lat, lng) <= distance(found.get(k), lat, lng));
+            }
+        }
+    }
+
+    @Test
+    public void insert_sameIdMovesTheAttraction() {
+        AttractionSpatialIndex index = new AttractionSpatialIndex(randomSriLankaPoints(500, 9));
+        index.insert(attraction("moving", 6.0, 80.0));
+        index.insert(attraction("moving", 9.5, 81.5));
+
+        assertEquals(501, index.size());
+        assertFalse(ids(index.query(5.95, 79.95, 6.05, 80.05)).contains("moving"));
+        assertTrue(ids(index.query(9.45, 81.45, 9.55, 81.55)).contains("moving"));
+    }
+
+    @Test
+    public void remove_dropsTheAttractionFromEveryQuery() {
+        List<Attraction> points = randomSriLankaPoints(1000, 10);
+        AttractionSpatialIndex index = new AttractionSpatialIndex(points);
+
+        List<Attraction> removed = new ArrayList<>(points.subList(0, 900));
+        for (Attraction point : removed) {
+            assertTrue(index.remove(point));
+        }
+        assertFalse(index.remove(points.get(0)));
+        assertEquals(100, index.size());
+
+        Set<String> remaining = ids(points.subList(900, 1000));
+        assertEquals(remaining, ids(index.query(-90, -180, 90, 180)));
+        assertEquals(remaining, ids(index.nearest(7.5, 80.5, 1000)));
+    }
+
+    @Test
+    public void coLocatedPointsBeyondCapacityAreAllKept() {
+        AttractionSpatialIndex index = new AttractionSpatialIndex();
+        for (int i = 0; i < AttractionSpatialIndex.NODE_CAPACITY * 4; i++) {
+            index.insert(attraction("same" + i, 7.2906, 80.6337));
+        }
+
+        assertEquals(AttractionSpatialIndex.NODE_CAPACITY * 4, index.withinRadius(7.2906, 80.6337, 0.001).size());
+    }
+
+    @Test
+    public void nearest_wrapsAroundTheAntimeridian() {
+        AttractionSpatialIndex index = new AttractionSpatialIndex();
+        index.insert(attraction("west", 0.0, -179.9));
+        index.insert(attraction("far", 0.0, 170.0));
+
+        assertEquals("west", index.nearest(0.0, 179.95, 1).get(0).getDocumentId());
+    }
+
+    @Test
+    public void emptyIndex_returnsNothing() {
+        AttractionSpatialIndex index = new AttractionSpatialIndex();
+
+        assertTrue(index.query(5, 79, 10, 82).isEmpty());
+        assertTrue(index.nearest(7, 80, 5).isEmpty());
+        assertTrue(index.withinRadius(7, 80, 100).isEmpty());
+    }
+
+    static List<Attraction> randomSriLankaPoints(int count, long seed) {
+        Random random = new Random(seed);
+        List<Attraction> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(attraction("a" + i,
+                    GeoUtils.SRI_LANKA_MIN_LAT + random.nextDouble() * (GeoUtils.SRI_LANKA_MAX_LAT - GeoUtils.SRI_LANKA_MIN_LAT),
+                    GeoUtils.SRI_LANKA_MIN_LNG + random.nextDouble() * (GeoUtils.SRI_LANKA_MAX_LNG - GeoUtils.SRI_LANKA_MIN_LNG)));
+        }
+        return points;
+    }
+
+    static Attraction attraction(String id, double latitude, double longitude) {
+        Attraction attraction = new Attraction();
+        attraction.setDocumentId(id);
+        attraction.setName(id);
+        attraction.setLatitude(latitude);
+        attraction.setLongitude(longitude);
+        return attraction;
+    }
+
+    static double distance(Attraction attraction, double latitude, double longitude) {
+        return GeoUtils.distanceKm(latitude, longitude, attraction.getLatitude(), attraction.getLongitude());
+    }
+
+    private static List<Double> sortedDistances(List<Attraction> points, double latitude, double longitude) {
+        List<Double> distances = new ArrayList<>(points.size());
+        for (Attraction point : points) {
+            distances.add(distance(point, latitude, longitude));
+        }
+        Collections.sort(distances);
+        return distances;
+    }
+
+    private static Set<String> ids(List<Attraction> attractions) {
+        Set<String> ids = new HashSet<>();
+        for (Attraction attraction : attractions) {
+            ids.add(attraction.getDocumentId());
+        }
+        return ids;
+    }
+}
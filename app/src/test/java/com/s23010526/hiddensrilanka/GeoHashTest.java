@@ -0,0 +1,83 @@
+package com.s23010526.hiddensrilanka;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link GeoHash}; query bounds are checked against the exact
+ * {@link GeoUtils#distanceKm} filter that runs after them
+ */
+public class GeoHashTest {
+
+    @Test
+    public void encode_matchesReferenceValues() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("ezs42", GeoHash.encode(42.6, -5.6, 5));
+        assertEquals("s0000", GeoHash.encode(0, 0, 5));
+    }
+
+    @Test
+    public void encode_longerHashesExtendShorterOnes() {
+        String full = GeoHash.encode(7.9570, 80.7603);
+        assertEquals(GeoHash.STORAGE_PRECISION, full.length());
+        for (int precision = 1; precision < GeoHash.STORAGE_PRECISION; precision++) {
+            assertTrue(full.startsWith(GeoHash.encode(7.9570, 80.7603, precision)));
+        }
+    }
+
+    @Test
+    public void queryBounds_coverEveryPointInsideTheCircle() {
+        Random random = new Random(11);
+        double[] radii = {0.5, 2, 10, 30, 100};
+        for (int centre = 0; centre < 200; centre++) {
+            double lat = 5.9 + random.nextDouble() * 4.0;
+            double lng = 79.5 + random.nextDouble() * 2.4;
+            for (double radiusKm : radii) {
+                List<String[]> bounds = GeoHash.queryBounds(lat, lng, radiusKm);
+                for (int i = 0; i < 200; i++) {
+                    // Points at or just inside the edge are the ones a loose bound drops
+                    double bearing = random.nextDouble() * 2 * Math.PI;
+                    double distanceKm = radiusKm * (1 - random.nextDouble() * 1e-3);
+                    double[] point = destination(lat, lng, bearing, distanceKm);
+                    if (GeoUtils.distanceKm(lat, lng, point[0], point[1]) > radiusKm) {
+                        continue;
+                    }
+                    assertTrue("missed point " + distanceKm + " km away at " + lat + "," + lng,
+                            covered(bounds, GeoHash.encode(point[0], point[1])));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void queryBounds_coverCirclesReachingAPole() {
+        List<String[]> bounds = GeoHash.queryBounds(89.9, 10, 50);
+        assertTrue(covered(bounds, GeoHash.encode(89.9, -170)));
+        assertTrue(covered(bounds, GeoHash.encode(89.6, 10)));
+    }
+
+    private static boolean covered(List<String[]> bounds, String hash) {
+        for (String[] range : bounds) {
+            if (hash.compareTo(range[0]) >= 0 && hash.compareTo(range[1]) <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Point distanceKm from a start point along a great circle
+    private static double[] destination(double lat, double lng, double bearing, double distanceKm) {
+        double angular = distanceKm / GeoUtils.EARTH_RADIUS_KM;
+        double phi1 = Math.toRadians(lat);
+        double lambda1 = Math.toRadians(lng);
+        double phi2 = Math.asin(Math.sin(phi1) * Math.cos(angular)
+                + Math.cos(phi1) * Math.sin(angular) * Math.cos(bearing));
+        double lambda2 = lambda1 + Math.atan2(Math.sin(bearing) * Math.sin(angular) * Math.cos(phi1),
+                Math.cos(angular) - Math.sin(phi1) * Math.sin(phi2));
+        return new double[]{Math.toDegrees(phi2), Math.toDegrees(lambda2)};
+    }
+}
@@ -0,0 +1,80 @@
+package com.s23010526.hiddensrilanka;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Benchmark of {@link PhotoPageScanner} against the old line-by-line extraction
+ *
+ * The old approach kept every line in a StringBuilder and compiled the pattern
+ * for each candidate line; it is reproduced here as the baseline. Time per page
+ * and bytes read per page are printed, not asserted, except that the scanner
+ * must never read more than one byte past its budget. Skipped in normal test runs; run with:
+ * ./gradlew :app:testDebugUnitTest --tests "*PhotoPageScannerBenchmark" -Pbenchmarks=true -i
+ */
+public class PhotoPageScannerBenchmark {
+
+    private static final int ITERATIONS = 500;
+    private static final String[] FIXTURES = {
+            "share_page_og_image.html", "share_page_image_late.html", "share_page_no_image.html"
+    };
+
+    @Test
+    public void benchmark_recordedPages() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean("benchmarks"));
+        for (String name : FIXTURES) {
+            byte[] page = PhotoPageScannerTest.fixture(name);
+            String expected = lineByLine(page);
+
+            long scanned = 0, baseline = 0, bytesRead = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                PhotoPageScannerTest.CountingInputStream in = new PhotoPageScannerTest.CountingInputStream(page);
+                long start = System.nanoTime();
+                String found = PhotoPageScanner.findImageUrl(in, PhotoPageScanner.DEFAULT_BYTE_BUDGET);
+                scanned += System.nanoTime() - start;
+                bytesRead += in.count;
+                assertEquals(expected, found);
+                assertTrue(in.count <= PhotoPageScanner.DEFAULT_BYTE_BUDGET + 1);
+
+                start = System.nanoTime();
+                lineByLine(page);
+                baseline += System.nanoTime() - start;
+            }
+            report(name, "streaming scanner", scanned, bytesRead / ITERATIONS);
+            report(name, "line by line (old)", baseline, page.length);
+        }
+    }
+
+    // The extraction this replaced, minus the network
+    private static String lineByLine(byte[] page) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(page)));
+        StringBuilder html = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            html.append(line);
+            if (line.contains("googleusercontent.com")) {
+                Pattern pattern = Pattern.compile("https://lh[0-9]\\.googleusercontent\\.com/[^\"'\\s]+");
+                Matcher matcher = pattern.matcher(line);
+                if (matcher.find()) {
+                    return matcher.group(0);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void report(String page, String approach, long totalNanos, long bytesPerPage) {
+        System.out.println(String.format(Locale.ROOT, "PhotoPageScanner %-28s %-20s %8.3f ms/page %8d bytes read",
+                page, approach, totalNanos / 1e6 / ITERATIONS, bytesPerPage));
+    }
+}
@@ -0,0 +1,132 @@
+package com.s23010526.hiddensrilanka;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PhotoPageScanner} against the pages in test resources /photo_pages
+ */
+public class PhotoPageScannerTest {
+
+    static final String EXPECTED_URL = "https://lh3.googleusercontent.com/pw/AP1GczNPtYgjmUhBel31iEl2hpChYgCfrL1"
+            + "spNxnyVmihA-2O76UMFxFkM-R5Kjp1vRt_1fjORS-6ilI8ihN5KXSc7Tvo-hBKqFYY-kv5ZJr3J1TWDtkwtDDb_xHKas"
+            + "=w1200-h900-s-no";
+
+    @Test
+    public void findsOgImage() throws IOException {
+        assertEquals(EXPECTED_URL, scan(fixture("share_page_og_image.html"), PhotoPageScanner.DEFAULT_BYTE_BUDGET));
+    }
+
+    @Test
+    public void findsImageDeepInPage() throws IOException {
+        assertEquals(EXPECTED_URL, scan(fixture("share_page_image_late.html"), PhotoPageScanner.DEFAULT_BYTE_BUDGET));
+    }
+
+    @Test
+    public void returnsNullWhenPageHasNoImage() throws IOException {
+        assertNull(scan(fixture("share_page_no_image.html"), PhotoPageScanner.DEFAULT_BYTE_BUDGET));
+    }
+
+    @Test
+    public void stopsAtByteBudget() throws IOException {
+        CountingInputStream page = new CountingInputStream(fixture("share_page_image_late.html"));
+        assertNull(PhotoPageScanner.findImageUrl(page, 16 * 1024));
+        // One byte past the budget tells a longer page from one that ends there
+        assertTrue(page.count <= 16 * 1024 + 1);
+    }
+
+    @Test
+    public void stopsReadingAtFirstHit() throws IOException {
+        byte[] html = fixture("share_page_og_image.html");
+        byte[] padded = new byte[html.length + 1024 * 1024];
+        System.arraycopy(html, 0, padded, 0, html.length);
+        CountingInputStream page = new CountingInputStream(padded);
+
+        assertEquals(EXPECTED_URL, PhotoPageScanner.findImageUrl(page, Integer.MAX_VALUE));
+        assertTrue("read " + page.count + " bytes", page.count < 64 * 1024);
+    }
+
+    @Test
+    public void findsUrlSplitAcrossReads() throws IOException {
+        String html = "<meta content=\"" + EXPECTED_URL + "\">";
+        // Every offset puts the URL on a different read boundary
+        for (int padding = 0; padding < 200; padding++) {
+            StringBuilder page = new StringBuilder();
+            for (int i = 0; i < 8192 - EXPECTED_URL.length() / 2 - padding; i++) {
+                page.append('x');
+            }
+            page.append(html);
+            assertEquals(EXPECTED_URL, scan(page.toString().getBytes(StandardCharsets.UTF_8), Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void urlEndingThePageIsFound() throws IOException {
+        assertEquals(EXPECTED_URL, scan(("<p>" + EXPECTED_URL).getBytes(StandardCharsets.UTF_8), Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void urlEndingThePageExactlyAtTheBudgetIsFound() throws IOException {
+        byte[] page = ("<p>" + EXPECTED_URL).getBytes(StandardCharsets.UTF_8);
+        assertEquals(EXPECTED_URL, scan(page, page.length));
+    }
+
+    @Test
+    public void urlCutOffByBudgetIsNotReturned() throws IOException {
+        byte[] page = ("<p>" + EXPECTED_URL).getBytes(StandardCharsets.UTF_8);
+        assertNull(scan(page, page.length - 10));
+    }
+
+    static byte[] fixture(String name) throws IOException {
+        try (InputStream in = PhotoPageScannerTest.class.getResourceAsStream("/photo_pages/" + name)) {
+            assertNotNull("missing fixture " + name, in);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static String scan(byte[] page, int budget) throws IOException {
+        return PhotoPageScanner.findImageUrl(new ByteArrayInputStream(page), budget);
+    }
+
+    /**
+     * Records how many bytes the scanner pulled
+     */
+    static final class CountingInputStream extends ByteArrayInputStream {
+        int count;
+
+        CountingInputStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read() {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public synchronized int read(byte[] buffer, int offset, int length) {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}